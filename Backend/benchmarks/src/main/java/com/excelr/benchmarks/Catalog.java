@@ -0,0 +1,75 @@
+package com.excelr.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.excelr.model.Category;
+import com.excelr.model.Product;
+import com.excelr.model.Subcategory;
+
+/**
+ * Deterministic synthetic products for benchmarks: a fixed seed gives the
+ * same names, brands, prices and ratings on every run and every commit.
+ */
+public final class Catalog {
+
+    private static final String[] CATEGORIES = {"Electronics", "Home", "Fashion", "Sports", "Books"};
+    private static final String[] SUBCATEGORIES = {
+            "Phones", "Laptops", "Headphones", "Cameras", "Kitchen", "Furniture", "Lighting", "Shirts",
+            "Shoes", "Watches", "Cycling", "Fitness", "Outdoor", "Fiction", "Science"};
+    private static final String[] BRANDS = {
+            "Acme", "Zenith", "Nova", "Orbit", "Pioneer", "Summit", "Vertex", "Lumen", "Aurora", "Cobalt"};
+    private static final String[] ADJECTIVES = {
+            "Wireless", "Compact", "Premium", "Portable", "Classic", "Smart", "Ultra", "Lightweight", "Pro", "Eco"};
+    private static final String[] NOUNS = {
+            "Speaker", "Headphones", "Charger", "Lamp", "Backpack", "Bottle", "Jacket", "Sneakers", "Watch",
+            "Camera", "Blender", "Chair", "Novel", "Helmet", "Keyboard"};
+
+    private Catalog() {
+    }
+
+    public static List<Product> products(int count, long seed) {
+        Random random = new Random(seed);
+        List<Subcategory> subcategories = subcategories();
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String adjective = ADJECTIVES[random.nextInt(ADJECTIVES.length)];
+            String noun = NOUNS[random.nextInt(NOUNS.length)];
+            // Squaring skews brands towards the first few, like a real catalog
+            double skew = random.nextDouble();
+            String brand = BRANDS[(int) (skew * skew * BRANDS.length)];
+
+            Product product = new Product();
+            product.setId((long) i + 1);
+            product.setName(brand + " " + adjective + " " + noun + " " + (i % 100));
+            product.setBrand(brand);
+            // Log-uniform prices from about 20 to 22,000
+            product.setPrice(Math.round(Math.exp(3 + random.nextDouble() * 7)) - 0.01);
+            product.setRating(Math.round(Math.max(1, Math.min(5, 4 + random.nextGaussian() * 0.7)) * 10) / 10f);
+            product.setQuantity(random.nextInt(500));
+            product.setDescription(adjective + " " + noun.toLowerCase() + " by " + brand
+                    + ", built for everyday use with a two year warranty.");
+            product.setImage("https://cdn.example.com/products/" + i + ".jpg");
+            product.setImageVariantWidths("320,640,1024");
+            product.setSubcategory(subcategories.get(random.nextInt(subcategories.size())));
+            products.add(product);
+        }
+        return products;
+    }
+
+    private static List<Subcategory> subcategories() {
+        List<Subcategory> subcategories = new ArrayList<>(SUBCATEGORIES.length);
+        for (int i = 0; i < SUBCATEGORIES.length; i++) {
+            Category category = new Category();
+            category.setId((long) i / 3 + 1);
+            category.setName(CATEGORIES[i / 3]);
+            Subcategory subcategory = new Subcategory();
+            subcategory.setId((long) i + 1);
+            subcategory.setName(SUBCATEGORIES[i]);
+            subcategory.setCategory(category);
+            subcategories.add(subcategory);
+        }
+        return subcategories;
+    }
+}
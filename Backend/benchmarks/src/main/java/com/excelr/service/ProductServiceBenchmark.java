@@ -0,0 +1,114 @@
+package com.excelr.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.excelr.benchmarks.Catalog;
+import com.excelr.model.Product;
+import com.excelr.model.ProductSearchPage;
+import com.excelr.model.Productdto;
+import com.excelr.util.ProductSearchIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The read path behind the product listing and search endpoints, minus the
+ * database: entity-to-DTO mapping, JSON serialization of a listing page, and
+ * search over an in-memory index of the synthetic catalog, hydrated from a
+ * warm product cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final String[] QUERIES = {
+            "wireless", "acme speaker", "headph", "pro watch", "lightweight backpack", "nova kitchen blender"};
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    @Param({"20"})
+    private int pageSize;
+
+    private ProductService productService;
+    private ObjectMapper objectMapper;
+    private List<Product> products;
+    private Page<Productdto> page;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        products = Catalog.products(catalogSize, 42L);
+        productService = new ProductService(null, null);
+        ProductSearchIndex searchIndex = new ProductSearchIndex();
+        // A warm product cache, so search pages hydrate without the repository
+        Cache<Long, Productdto> productCache = Caffeine.newBuilder().build();
+        for (Product product : products) {
+            Productdto dto = productService.mapProductToProductDTO(product);
+            searchIndex.index(dto, product.getSubcategory().getCategory().getName());
+            productCache.put(dto.getId(), dto);
+        }
+        ReflectionTestUtils.setField(productService, "searchIndex", searchIndex);
+        ReflectionTestUtils.setField(productService, "productCache", productCache);
+
+        // Configured like Spring Boot's auto-configured mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        page = new PageImpl<>(products.subList(0, pageSize).stream()
+                .map(productService::mapProductToProductDTO)
+                .toList(), PageRequest.of(0, pageSize), catalogSize);
+    }
+
+    @Benchmark
+    public Productdto mapProductToProductDTO() {
+        next = (next + 1) % catalogSize;
+        return productService.mapProductToProductDTO(products.get(next));
+    }
+
+    @Benchmark
+    public Page<Productdto> mapPage() {
+        return new PageImpl<>(products.subList(0, pageSize).stream()
+                .map(productService::mapProductToProductDTO)
+                .toList(), PageRequest.of(0, pageSize), catalogSize);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public ProductSearchPage searchByRelevance() {
+        next = (next + 1) % QUERIES.length;
+        return productService.searchProducts(QUERIES[next], null, null, pageSize);
+    }
+
+    @Benchmark
+    public ProductSearchPage searchByPrice() {
+        next = (next + 1) % QUERIES.length;
+        return productService.searchProducts(QUERIES[next], "price_asc", null, pageSize);
+    }
+}
@@ -0,0 +1,61 @@
+package com.excelr.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RazorpayServiceBenchmark {
+
+    private static final String KEY_SECRET = "rzp_bench_secret";
+
+    private RazorpayService razorpayService;
+    private String signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        razorpayService = new RazorpayService();
+        ReflectionTestUtils.setField(razorpayService, "keyId", "rzp_bench_key");
+        ReflectionTestUtils.setField(razorpayService, "keySecret", KEY_SECRET);
+        ReflectionTestUtils.setField(razorpayService, "webhookSecret", "");
+        razorpayService.init();
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(KEY_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        signature = HexFormat.of().formatHex(
+                mac.doFinal("order_Bench123|pay_Bench456".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public boolean verifyPayment() {
+        return razorpayService.verifyPayment("order_Bench123", "pay_Bench456", signature);
+    }
+
+    // Request threads share the service, each with its own Mac
+    @Benchmark
+    @Threads(4)
+    public boolean verifyPaymentConcurrently() {
+        return razorpayService.verifyPayment("order_Bench123", "pay_Bench456", signature);
+    }
+}
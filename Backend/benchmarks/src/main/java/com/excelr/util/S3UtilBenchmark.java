@@ -0,0 +1,67 @@
+package com.excelr.util;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * Upload validation on typical product photos: a phone-sized picture and a
+ * large studio shot, as JPEG and PNG.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class S3UtilBenchmark {
+
+    @Param({"jpeg", "png"})
+    private String format;
+
+    @Param({"800", "2400"})
+    private int width;
+
+    private S3Util s3Util;
+    private MockMultipartFile file;
+
+    @Setup
+    public void setUp() throws Exception {
+        s3Util = new S3Util();
+        BufferedImage image = new BufferedImage(width, width * 3 / 4, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(width);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                // A gradient with some noise compresses roughly like a photo
+                int shade = (x * 255 / image.getWidth() + random.nextInt(32)) & 0xff;
+                image.setRGB(x, y, shade << 16 | (y * 255 / image.getHeight()) << 8 | (255 - shade));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        String extension = "jpeg".equals(format) ? ".jpg" : ".png";
+        file = new MockMultipartFile("image", "product" + extension, "image/" + format, out.toByteArray());
+    }
+
+    @Benchmark
+    public MockMultipartFile validateFile() {
+        s3Util.validateFile(file);
+        return file;
+    }
+}
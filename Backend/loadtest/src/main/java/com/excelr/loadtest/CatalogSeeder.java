@@ -0,0 +1,30 @@
+package com.excelr.loadtest;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.excelr.service.CatalogGenerator;
+
+/**
+ * Fills the empty load-test database with the synthetic catalog before the
+ * application reports ready, so the search index is built over the seeded
+ * products. Sizes come from the {@code generate.*} properties; ids start at 1,
+ * which the load generator relies on.
+ */
+@Profile("loadtest")
+@Component
+public class CatalogSeeder implements ApplicationRunner {
+
+    private final CatalogGenerator catalogGenerator;
+
+    public CatalogSeeder(CatalogGenerator catalogGenerator) {
+        this.catalogGenerator = catalogGenerator;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        catalogGenerator.generate();
+    }
+}
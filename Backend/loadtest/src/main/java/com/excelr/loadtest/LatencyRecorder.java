@@ -0,0 +1,84 @@
+package com.excelr.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Per-endpoint latency histograms and error counts, safe to record from many
+ * threads. {@link #reset()} discards everything recorded so far, which is how
+ * the warmup is cut off.
+ */
+class LatencyRecorder {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+
+    void record(String endpoint, long startNanos, long endNanos, boolean success) {
+        Endpoint stats = endpoint(endpoint);
+        stats.latencies.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos)));
+        if (!success) {
+            stats.errors.incrementAndGet();
+        }
+    }
+
+    void dropped(String endpoint) {
+        endpoint(endpoint).dropped.incrementAndGet();
+    }
+
+    void reset() {
+        endpoints.values().forEach(stats -> {
+            stats.latencies.getIntervalHistogram();
+            stats.errors.set(0);
+            stats.dropped.set(0);
+        });
+    }
+
+    /**
+     * Returns one row per endpoint with request and error counts, throughput over
+     * {@code seconds} and latency percentiles in milliseconds.
+     */
+    List<Map<String, Object>> report(double seconds) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        endpoints.forEach((name, stats) -> {
+            Histogram histogram = stats.latencies.getIntervalHistogram();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", name);
+            row.put("requests", histogram.getTotalCount());
+            row.put("errors", stats.errors.get());
+            row.put("dropped", stats.dropped.get());
+            row.put("throughput", round(histogram.getTotalCount() / seconds));
+            row.put("mean", round(histogram.getMean() / 1000));
+            for (double percentile : PERCENTILES) {
+                row.put("p" + (percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                        round(histogram.getValueAtPercentile(percentile) / 1000.0));
+            }
+            row.put("max", round(histogram.getMaxValue() / 1000.0));
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    private Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, n -> new Endpoint());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static class Endpoint {
+        // Microseconds, three significant digits, resized as needed
+        final Recorder latencies = new Recorder(3);
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+    }
+}
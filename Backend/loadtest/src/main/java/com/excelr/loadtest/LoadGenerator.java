@@ -0,0 +1,396 @@
+package com.excelr.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.excelr.service.CatalogGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives a shopper-like mix of requests at the running application and
+ * reports throughput and latency percentiles per endpoint. In closed-loop
+ * mode a fixed number of virtual users each wait for their previous request;
+ * in open-loop mode requests are started at a fixed rate whether or not the
+ * server keeps up, and latency counts from when a request was due.
+ */
+@Slf4j
+@Profile("loadtest")
+@Component
+public class LoadGenerator {
+
+    private static final String BROWSE = "GET /api/products";
+    private static final String SEARCH = "GET /api/products/search";
+    private static final String DETAIL = "GET /api/products/{id}";
+    private static final String LOGIN = "POST /login";
+    private static final String CART = "PUT /user/cart";
+    private static final String CREATE_ORDER = "POST /create-order";
+    private static final DateTimeFormatter REPORT_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Environment environment;
+    private final ObjectMapper objectMapper;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    @Value("${loadtest.mode:closed}")
+    private String mode;
+
+    @Value("${loadtest.users:50}")
+    private int users;
+
+    @Value("${loadtest.think.ms:0}")
+    private long thinkMillis;
+
+    @Value("${loadtest.rate:200}")
+    private int rate;
+
+    @Value("${loadtest.max-in-flight:1000}")
+    private int maxInFlight;
+
+    @Value("${loadtest.warmup.seconds:10}")
+    private long warmupSeconds;
+
+    @Value("${loadtest.duration.seconds:60}")
+    private long durationSeconds;
+
+    @Value("${loadtest.mix:browse:40,search:25,detail:25,login:5,checkout:5}")
+    private String mix;
+
+    @Value("${loadtest.report.dir:results}")
+    private String reportDir;
+
+    @Value("${generate.categories:10}")
+    private int categories;
+
+    @Value("${generate.subcategories-per-category:8}")
+    private int subcategoriesPerCategory;
+
+    @Value("${generate.products:50000}")
+    private int products;
+
+    @Value("${generate.users:1000}")
+    private int accounts;
+
+    private HttpClient client;
+    private String baseUrl;
+    private AtomicReferenceArray<String> tokens;
+    private List<Scenario> scenarios;
+    private int totalWeight;
+    private volatile boolean running;
+
+    public LoadGenerator(Environment environment, ObjectMapper objectMapper) {
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+    }
+
+    public void run() throws Exception {
+        baseUrl = "http://localhost:" + environment.getRequiredProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool(daemonThreads("loadtest-http-")))
+                .build();
+        tokens = new AtomicReferenceArray<>(accounts + 1);
+        parseMix();
+
+        boolean open = "open".equalsIgnoreCase(mode);
+        if (!open && !"closed".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("loadtest.mode must be closed or open, not " + mode);
+        }
+        log.info("Starting {}-loop load test against {}: {}, {} s warmup, {} s measured, mix {}", open ? "open" : "closed",
+                baseUrl, open ? rate + " requests/s" : users + " users", warmupSeconds, durationSeconds, mix);
+
+        running = true;
+        ExecutorService workers = open ? startOpenLoop() : startClosedLoop();
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        recorder.reset();
+        long measuredFrom = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        List<Map<String, Object>> rows = recorder.report((System.nanoTime() - measuredFrom) / 1e9);
+        running = false;
+        workers.shutdownNow();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+
+        print(rows);
+        write(rows, open);
+    }
+
+    private ExecutorService startClosedLoop() {
+        ExecutorService workers = Executors.newFixedThreadPool(users, daemonThreads("loadtest-user-"));
+        for (int i = 0; i < users; i++) {
+            workers.execute(() -> {
+                while (running && !Thread.currentThread().isInterrupted()) {
+                    nextScenario().run(System.nanoTime());
+                    if (thinkMillis > 0) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(thinkMillis));
+                    }
+                }
+            });
+        }
+        return workers;
+    }
+
+    private ExecutorService startOpenLoop() {
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(maxInFlight, maxInFlight, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemonThreads("loadtest-request-"));
+        ExecutorService dispatcher = Executors.newSingleThreadExecutor(daemonThreads("loadtest-dispatch-"));
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        dispatcher.execute(() -> {
+            long due = System.nanoTime();
+            while (running && !Thread.currentThread().isInterrupted()) {
+                due += interval;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Scenario scenario = nextScenario();
+                long scheduled = due;
+                try {
+                    workers.execute(() -> scenario.run(scheduled));
+                } catch (RejectedExecutionException e) {
+                    // More than max-in-flight requests outstanding: the server is not keeping up
+                    recorder.dropped(scenario.firstEndpoint());
+                }
+            }
+            workers.shutdownNow();
+        });
+        return dispatcher;
+    }
+
+    private void browse(long due) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder query = new StringBuilder("?size=20&page=").append(skewed(random, 50));
+        if (random.nextInt(10) < 3) {
+            query.append("&subcategoryId=").append(1 + random.nextInt(categories * subcategoriesPerCategory));
+        }
+        if (random.nextInt(10) < 2) {
+            query.append("&sort=price,asc");
+        }
+        send(BROWSE, get("/api/products" + query), due);
+    }
+
+    private void search(long due) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String keyword = switch (random.nextInt(4)) {
+            case 0 -> brand(random);
+            case 1 -> pick(random, CatalogGenerator.ADJECTIVES) + " " + pick(random, CatalogGenerator.NOUNS);
+            case 2 -> brand(random) + " " + pick(random, CatalogGenerator.NOUNS);
+            // Search-as-you-type: a partial last word
+            default -> pick(random, CatalogGenerator.NOUNS).substring(0, 3);
+        };
+        send(SEARCH, get("/api/products/search?limit=20&keyword="
+                + URLEncoder.encode(keyword.toLowerCase(), StandardCharsets.UTF_8)), due);
+    }
+
+    private void detail(long due) {
+        // A few popular products take most of the views
+        send(DETAIL, get("/api/products/" + (1 + skewed(ThreadLocalRandom.current(), products))), due);
+    }
+
+    private void login(long due) {
+        login(1 + ThreadLocalRandom.current().nextInt(accounts), due);
+    }
+
+    private String login(int account, long due) {
+        String body = "{\"username\":\"user" + account + "\",\"password\":\"password" + account + "\"}";
+        HttpResponse<String> response = send(LOGIN, post("/login", body).build(), due);
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+        try {
+            String token = objectMapper.readTree(response.body()).path("token").asText(null);
+            tokens.set(account, token);
+            return token;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void checkout(long due) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int account = 1 + random.nextInt(accounts);
+        String token = tokens.get(account);
+        if (token == null) {
+            token = login(account, due);
+            if (token == null) {
+                return;
+            }
+            due = System.nanoTime();
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            lines.add("{\"productId\":" + (1 + skewed(random, products)) + ",\"quantity\":" + (1 + random.nextInt(2)) + "}");
+        }
+        HttpResponse<String> cart = send(CART, HttpRequest.newBuilder(URI.create(baseUrl + "/user/cart"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .PUT(HttpRequest.BodyPublishers.ofString("[" + String.join(",", lines) + "]"))
+                .build(), due);
+        if (cart == null || cart.statusCode() >= 300) {
+            return;
+        }
+        send(CREATE_ORDER, post("/create-order", "{\"currency\":\"INR\"}")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .build(), System.nanoTime());
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request, long startNanos) {
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            recorder.record(endpoint, startNanos, System.nanoTime(), response.statusCode() < 400);
+            return response;
+        } catch (IOException e) {
+            recorder.record(endpoint, startNanos, System.nanoTime(), false);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private void parseMix() {
+        Map<String, Scenario> known = new LinkedHashMap<>();
+        known.put("browse", new Scenario(BROWSE, 0, this::browse));
+        known.put("search", new Scenario(SEARCH, 0, this::search));
+        known.put("detail", new Scenario(DETAIL, 0, this::detail));
+        known.put("login", new Scenario(LOGIN, 0, this::login));
+        known.put("checkout", new Scenario(CART, 0, this::checkout));
+
+        scenarios = new ArrayList<>();
+        totalWeight = 0;
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Scenario scenario = known.get(parts[0].trim());
+            if (scenario == null || parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry '" + entry + "', expected one of "
+                        + known.keySet() + " with a weight, e.g. browse:40");
+            }
+            totalWeight += Integer.parseInt(parts[1].trim());
+            scenarios.add(new Scenario(scenario.firstEndpoint(), totalWeight, scenario.action()));
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("loadtest.mix needs at least one positive weight");
+        }
+    }
+
+    private Scenario nextScenario() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            if (ticket < scenario.cumulativeWeight()) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    private void print(List<Map<String, Object>> rows) {
+        StringBuilder table = new StringBuilder(String.format("%n%-26s %9s %7s %7s %9s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "dropped", "req/s", "p50 ms", "p90 ms", "p95 ms", "p99 ms",
+                "p99.9 ms", "max ms"));
+        for (Map<String, Object> row : rows) {
+            table.append(String.format("%-26s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    row.get("endpoint"), row.get("requests"), row.get("errors"), row.get("dropped"),
+                    row.get("throughput"), row.get("p50"), row.get("p90"), row.get("p95"), row.get("p99"),
+                    row.get("p99.9"), row.get("max")));
+        }
+        log.info("Load test results over {} s:{}", durationSeconds, table);
+    }
+
+    private void write(List<Map<String, Object>> rows, boolean open) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("mode", open ? "open" : "closed");
+        report.put(open ? "rate" : "users", open ? rate : users);
+        report.put("warmupSeconds", warmupSeconds);
+        report.put("durationSeconds", durationSeconds);
+        report.put("mix", mix);
+        report.put("products", products);
+        report.put("endpoints", rows);
+
+        Path dir = Paths.get(reportDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("loadtest-" + LocalDateTime.now().format(REPORT_NAME) + ".json");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        log.info("Load test report written to {}", file.toAbsolutePath());
+    }
+
+    // Index in [0, bound) with low values far more likely, for hot products and first pages
+    private static int skewed(ThreadLocalRandom random, int bound) {
+        double r = random.nextDouble();
+        return (int) (r * r * r * bound);
+    }
+
+    private static String pick(ThreadLocalRandom random, List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    // Shoppers mostly search for the brands that have the most products
+    private static String brand(ThreadLocalRandom random) {
+        return CatalogGenerator.brandName(skewed(random, 50));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Scenario(String firstEndpoint, int cumulativeWeight, LongConsumer action) {
+        void run(long due) {
+            try {
+                action.accept(due);
+            } catch (RuntimeException e) {
+                log.warn("{} failed: {}", firstEndpoint, e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.excelr.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.excelr.ECommerceApplication;
+
+/**
+ * Boots the backend under the {@code loadtest} profile (H2, in-memory object
+ * store, simulated payment gateway, seeded catalog), runs the load generator
+ * against its HTTP port and shuts down. Any {@code loadtest.*} property can be
+ * overridden on the command line, e.g. {@code --loadtest.mode=open --loadtest.rate=500}.
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ECommerceApplication.class)
+                .profiles("loadtest")
+                .run(args);
+        try {
+            context.getBean(LoadGenerator.class).run();
+        } finally {
+            context.close();
+        }
+    }
+}
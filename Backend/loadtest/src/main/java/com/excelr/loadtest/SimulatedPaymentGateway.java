@@ -0,0 +1,41 @@
+package com.excelr.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.excelr.exceptionHandler.PaymentGatewayException;
+import com.excelr.service.PaymentGateway;
+
+/**
+ * Stands in for Razorpay order creation: waits about as long as the real API
+ * and hands out unique order ids.
+ */
+@Primary
+@Profile("loadtest")
+@Component
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private final AtomicLong orders = new AtomicLong();
+
+    @Value("${loadtest.gateway.latency.ms:150}")
+    private long latencyMillis;
+
+    @Value("${loadtest.gateway.jitter.ms:100}")
+    private long jitterMillis;
+
+    @Override
+    public String createOrder(long amountPaise, String currency, String receipt) {
+        try {
+            Thread.sleep(latencyMillis + ThreadLocalRandom.current().nextLong(jitterMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("Interrupted", e);
+        }
+        return "order_lt" + orders.incrementAndGet();
+    }
+}
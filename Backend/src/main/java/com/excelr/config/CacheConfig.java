@@ -0,0 +1,51 @@
+package com.excelr.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.excelr.model.AuthenticatedUser;
+import com.excelr.model.Productdto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${cache.products.maximum-size:10000}")
+    private long productCacheSize;
+
+    @Value("${cache.products.ttl.minutes:10}")
+    private long productCacheTtlMinutes;
+
+    @Value("${cache.principals.maximum-size:10000}")
+    private long principalCacheSize;
+
+    @Value("${cache.principals.ttl.seconds:60}")
+    private long principalCacheTtlSeconds;
+
+    @Bean
+    public Cache<Integer, AuthenticatedUser> principalCache(MeterRegistry meterRegistry) {
+        Cache<Integer, AuthenticatedUser> cache = Caffeine.newBuilder()
+                .maximumSize(principalCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(principalCacheTtlSeconds))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    @Bean
+    public Cache<Long, Productdto> productCache(MeterRegistry meterRegistry) {
+        Cache<Long, Productdto> cache = Caffeine.newBuilder()
+                .maximumSize(productCacheSize)
+                .expireAfterWrite(Duration.ofMinutes(productCacheTtlMinutes))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+}
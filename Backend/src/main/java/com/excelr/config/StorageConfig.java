@@ -0,0 +1,92 @@
+package com.excelr.config;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.servlets.DefaultServlet;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.excelr.util.InMemoryObjectStore;
+import com.excelr.util.LocalObjectStore;
+import com.excelr.util.ObjectStore;
+import com.excelr.util.S3ObjectStore;
+
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Chooses where uploaded images live: {@code storage.type=s3} (default),
+ * {@code local} for single-node deployments, or {@code memory} for benchmarks
+ * and tests that must not touch AWS.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Value("${storage.public-base-url:http://localhost:8081}")
+    private String publicBaseUrl;
+
+    @Value("${storage.local.url-path:/media}")
+    private String urlPath;
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "s3", matchIfMissing = true)
+    public ObjectStore s3ObjectStore(S3Client s3Client, @Value("${aws.s3.bucket.name}") String bucketName) {
+        return new S3ObjectStore(s3Client, bucketName);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "local")
+    public LocalObjectStore localObjectStore(
+            @Value("${storage.local.dir:${java.io.tmpdir}/ecommerce-media}") String dir) throws IOException {
+        return new LocalObjectStore(Paths.get(dir), publicBaseUrl + urlPath);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "memory")
+    public InMemoryObjectStore inMemoryObjectStore() {
+        return new InMemoryObjectStore(publicBaseUrl + urlPath);
+    }
+
+    /**
+     * Serves the local store with Tomcat's default servlet rather than a Spring
+     * MVC handler: it answers conditional and range requests, caches small files
+     * and hands large ones to the socket with sendfile.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "storage.type", havingValue = "local")
+    static class LocalStorageServing {
+
+        @Value("${storage.local.url-path:/media}")
+        private String urlPath;
+
+        @Bean
+        public WebServerFactoryCustomizer<TomcatServletWebServerFactory> localObjectStoreResources(
+                LocalObjectStore objectStore) {
+            return factory -> factory.addContextCustomizers(context -> context.addLifecycleListener(event -> {
+                if (Lifecycle.CONFIGURE_START_EVENT.equals(event.getType())) {
+                    WebResourceRoot resources = context.getResources();
+                    resources.addPreResources(
+                            new DirResourceSet(resources, urlPath, objectStore.getRoot().toString(), "/"));
+                }
+            }));
+        }
+
+        @Bean
+        public ServletRegistrationBean<DefaultServlet> localObjectStoreServlet() {
+            ServletRegistrationBean<DefaultServlet> registration =
+                    new ServletRegistrationBean<>(new DefaultServlet(), urlPath + "/*");
+            registration.setName("localObjectStore");
+            registration.addInitParameter("listings", "false");
+            registration.setLoadOnStartup(1);
+            return registration;
+        }
+    }
+}
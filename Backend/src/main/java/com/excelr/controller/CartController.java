@@ -0,0 +1,69 @@
+package com.excelr.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.excelr.model.AuthenticatedUser;
+import com.excelr.model.CartLine;
+import com.excelr.model.CartView;
+import com.excelr.service.CartService;
+
+@RestController
+@RequestMapping("/user/cart")
+public class CartController {
+
+	private final CartService cartService;
+
+	public CartController(CartService cartService) {
+		this.cartService = cartService;
+	}
+
+	@GetMapping
+	public ResponseEntity<CartView> getCart(@AuthenticationPrincipal AuthenticatedUser user) {
+		return ResponseEntity.ok(cartService.view(user.getId()));
+	}
+
+	@PutMapping
+	public ResponseEntity<Void> replaceCart(@AuthenticationPrincipal AuthenticatedUser user,
+			@RequestBody List<CartLine> lines) {
+		cartService.replace(user.getId(), lines);
+		return ResponseEntity.noContent().build();
+	}
+
+	@PostMapping("/items")
+	public ResponseEntity<Void> addItem(@AuthenticationPrincipal AuthenticatedUser user, @RequestBody CartLine line) {
+		cartService.addItem(user.getId(), line.getProductId(), line.getQuantity());
+		return ResponseEntity.noContent().build();
+	}
+
+	@PutMapping("/items/{productId}")
+	public ResponseEntity<Void> setQuantity(@AuthenticationPrincipal AuthenticatedUser user,
+			@PathVariable Long productId, @RequestParam int quantity) {
+		cartService.setQuantity(user.getId(), productId, quantity);
+		return ResponseEntity.noContent().build();
+	}
+
+	@DeleteMapping("/items/{productId}")
+	public ResponseEntity<Void> removeItem(@AuthenticationPrincipal AuthenticatedUser user,
+			@PathVariable Long productId) {
+		cartService.removeItem(user.getId(), productId);
+		return ResponseEntity.noContent().build();
+	}
+
+	@DeleteMapping
+	public ResponseEntity<Void> clearCart(@AuthenticationPrincipal AuthenticatedUser user) {
+		cartService.clear(user.getId());
+		return ResponseEntity.noContent().build();
+	}
+}
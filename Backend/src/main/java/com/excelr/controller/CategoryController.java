@@ -27,6 +27,10 @@ public class CategoryController {
 	public ResponseEntity<?> singleCategory(@PathVariable Long id) {
 		return categoryService.getCategoryById(id);
 	}
+	@GetMapping("/api/category/{id}/image-status")
+	public ResponseEntity<?> categoryImageStatus(@PathVariable Long id) {
+		return categoryService.getImageStatus(id);
+	}
 	@PutMapping(value = "/api/category/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> updateCategory(@PathVariable Long id, @RequestPart Category category,@RequestPart("image") MultipartFile image) {
         return categoryService.updateCategory(id, category,image);
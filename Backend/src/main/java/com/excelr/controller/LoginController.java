@@ -1,19 +1,28 @@
 package com.excelr.controller;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.excelr.model.AuthenticatedUser;
+import com.excelr.model.PaymentOrder;
 import com.excelr.model.User;
 import com.excelr.model.Userdto;
+import com.excelr.service.CartService;
 import com.excelr.service.LoginService;
+import com.excelr.service.PaymentOrderService;
 import com.excelr.service.RazorpayService;
+import com.excelr.service.StockReservationService;
 
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -27,6 +36,15 @@ public class LoginController {
 	
 	@Autowired
 	private RazorpayService razorpayService;
+
+	@Autowired
+	private StockReservationService stockReservationService;
+
+	@Autowired
+	private CartService cartService;
+
+	@Autowired
+	private PaymentOrderService paymentOrderService;
 	
 
 	@PostMapping("/register")
@@ -54,20 +72,26 @@ public class LoginController {
 	 * razorpay
 	 */
 	@PostMapping("/create-order")
-    public ResponseEntity<?> createOrder(@RequestBody Map<String, Object> data) {
-        try {
-            Double amount = (double) data.get("amount");
-            String currency = (String) data.get("currency");
-            String receipt = (String) data.get("receipt");
-
-            String order = razorpayService.createOrder(amount, currency, receipt);
-            return ResponseEntity.ok(order);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Failed to create order");
+    public ResponseEntity<?> createOrder(@AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody(required = false) Map<String, Object> data) {
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Sign in to check out");
         }
+        // The amount is priced from the server-side cart; retries with the same key get the same order
+        String currency = data != null && data.get("currency") != null ? (String) data.get("currency") : "INR";
+        PaymentOrder order = paymentOrderService.createOrder(user.getId(), idempotencyKey, currency);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", order.getGatewayOrderId());
+        response.put("amount", order.getAmountPaise());
+        response.put("currency", order.getCurrency());
+        response.put("receipt", order.getReceipt());
+        return ResponseEntity.ok(response);
     }
 	@PostMapping("/verify-payment")
-    public ResponseEntity<?> verifyPayment(@RequestBody Map<String, String> data) {
+    public ResponseEntity<?> verifyPayment(@AuthenticationPrincipal AuthenticatedUser user,
+            @RequestBody Map<String, String> data) {
         String orderId = data.get("razorpay_order_id");
         String paymentId = data.get("razorpay_payment_id");
         String signature = data.get("razorpay_signature");
@@ -75,8 +99,16 @@ public class LoginController {
         boolean isValid = razorpayService.verifyPayment(orderId, paymentId, signature);
 
         if (isValid) {
+            if (!stockReservationService.confirm(orderId)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Payment Verified but items are out of stock");
+            }
+            paymentOrderService.markPaid(orderId);
+            if (user != null) {
+                cartService.clear(user.getId());
+            }
             return ResponseEntity.ok("Payment Verified");
         } else {
+            // The hold stays until its TTL or a verified payment.failed webhook; anyone can post a bad signature
             return ResponseEntity.badRequest().body("Payment Verification Failed");
         }
     }
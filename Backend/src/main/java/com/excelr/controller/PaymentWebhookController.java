@@ -0,0 +1,32 @@
+package com.excelr.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.excelr.service.PaymentWebhookService;
+
+@RestController
+@RequestMapping("/webhooks")
+public class PaymentWebhookController {
+
+	private final PaymentWebhookService paymentWebhookService;
+
+	public PaymentWebhookController(PaymentWebhookService paymentWebhookService) {
+		this.paymentWebhookService = paymentWebhookService;
+	}
+
+	// Signed over the raw body, so it is read as bytes rather than bound to an object
+	@PostMapping("/razorpay")
+	public ResponseEntity<Void> razorpay(@RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId,
+			@RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+			@RequestBody byte[] body) {
+		if (!paymentWebhookService.receive(eventId, signature, body)) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok().build();
+	}
+}
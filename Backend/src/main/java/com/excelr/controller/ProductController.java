@@ -1,7 +1,14 @@
 package com.excelr.controller;
 
-import java.io.ByteArrayInputStream;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -16,25 +23,44 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 
+import com.excelr.model.ExportFormat;
+import com.excelr.model.ExportJob;
+import com.excelr.model.ExportJobStatus;
+import com.excelr.model.ProductBulkUpdateResult;
+import com.excelr.model.ProductImportResult;
+import com.excelr.model.ProductSearchPage;
+import com.excelr.model.ProductSlice;
 import com.excelr.model.Productdto;
+import com.excelr.service.ExportJobService;
+import com.excelr.service.ProductBulkUpdateService;
+import com.excelr.service.ProductImportService;
 import com.excelr.service.ProductService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
 	private final ProductService productService;
+	private final ExportJobService exportJobService;
+	private final ProductImportService productImportService;
+	private final ProductBulkUpdateService productBulkUpdateService;
 
-	public ProductController(ProductService productService) {
+	public ProductController(ProductService productService, ExportJobService exportJobService,
+			ProductImportService productImportService, ProductBulkUpdateService productBulkUpdateService) {
 		this.productService = productService;
+		this.exportJobService = exportJobService;
+		this.productImportService = productImportService;
+		this.productBulkUpdateService = productBulkUpdateService;
 	}
 
 	@GetMapping
@@ -48,11 +74,26 @@ public class ProductController {
 		return ResponseEntity.ok(products);
 	}
 
+	@GetMapping("/scroll")
+	public ResponseEntity<ProductSlice> scrollProducts(@RequestParam(required = false) Long subcategoryId,
+			@RequestParam(defaultValue = "id") String sort,
+			@RequestParam(defaultValue = "asc") String direction,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "20") int size,
+			@RequestParam(defaultValue = "false") boolean includeTotal) {
+		return ResponseEntity.ok(productService.getProductSlice(subcategoryId, sort, direction, cursor, size, includeTotal));
+	}
+
 	@GetMapping("/{id}")
 	public ResponseEntity<Productdto> getProductById(@PathVariable long id) {
 		return ResponseEntity.ok(productService.getProductById(id));
 	}
 
+	@GetMapping("/{id}/image-status")
+	public ResponseEntity<Map<String, Object>> getImageStatus(@PathVariable long id) {
+		return ResponseEntity.ok(Map.of("id", id, "imageStatus", productService.getImageStatus(id)));
+	}
+
 	@PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
 	public ResponseEntity<Productdto> createProduct(@RequestPart("product") Productdto productDto,
 			@RequestPart("image") MultipartFile image) {
@@ -73,25 +114,83 @@ public class ProductController {
 	}
 
 	@GetMapping("/search")
-	public ResponseEntity<List<Productdto>> searchProducts(@RequestParam String keyword) {
-		List<Productdto> products = productService.searchProducts(keyword);
+	public ResponseEntity<ProductSearchPage> searchProducts(@RequestParam String keyword,
+			@RequestParam(defaultValue = "relevance") String sort,
+			@RequestParam(required = false) String pageToken,
+			@RequestParam(defaultValue = "20") int limit) {
+		ProductSearchPage products = productService.searchProducts(keyword, sort, pageToken, limit);
 		return new ResponseEntity<>(products, HttpStatus.OK);
 	}
 	
 	@GetMapping("/export")
-	public ResponseEntity<Resource> exportToExcel() {
-	    try {
-	        ByteArrayInputStream stream = productService.exportProductsToExcel();
-	        HttpHeaders headers = new HttpHeaders();
-	        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Products.xlsx");
-	        InputStreamResource file = new InputStreamResource(stream);
-	        return ResponseEntity.ok()
-	            .headers(headers)
-	            .contentType(MediaType.parseMediaType("application/vnd.ms-excel"))
-	            .body(file);
-	    } catch (Exception e) {
-	        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-	    }
+	public ResponseEntity<StreamingResponseBody> exportToExcel() {
+		StreamingResponseBody body = productService::exportProductsToExcel;
+		return ResponseEntity.ok()
+			.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Products.xlsx")
+			.contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+			.body(body);
 	}
-	
-}
\ No newline at end of file
+
+	@PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public ResponseEntity<ProductImportResult> importProducts(@RequestPart("file") MultipartFile file) {
+		return ResponseEntity.ok(productImportService.importProducts(file));
+	}
+
+	@PutMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public ResponseEntity<ProductBulkUpdateResult> bulkUpdateProducts(InputStream body) {
+		return ResponseEntity.ok(productBulkUpdateService.applyUpdates(body));
+	}
+
+	@GetMapping("/cache/stats")
+	public ResponseEntity<Map<String, Object>> getCacheStats() {
+		return ResponseEntity.ok(productService.getCacheStats());
+	}
+
+	@PostMapping("/export/jobs")
+	public ResponseEntity<ExportJob> submitExportJob(@RequestParam(defaultValue = "xlsx") String format) {
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(exportJobService.submit(ExportFormat.from(format)));
+	}
+
+	@GetMapping("/export/jobs/{jobId}")
+	public ResponseEntity<ExportJob> getExportJob(@PathVariable String jobId) {
+		return exportJobService.getJob(jobId)
+			.map(ResponseEntity::ok)
+			.orElse(ResponseEntity.notFound().build());
+	}
+
+	@GetMapping("/export/jobs/{jobId}/file")
+	public void downloadExportJob(@PathVariable String jobId, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		ExportJob job = exportJobService.getJob(jobId).orElse(null);
+		if (job == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		if (job.getStatus() != ExportJobStatus.COMPLETED) {
+			response.sendError(HttpServletResponse.SC_CONFLICT, "Export job is " + job.getStatus());
+			return;
+		}
+
+		Path file = job.getFile();
+		long size = Files.size(file);
+		response.setContentType(job.getFormat().getContentType());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getFileName());
+		response.setContentLengthLong(size);
+
+		// Let Tomcat hand the file to the socket with sendfile when the connector supports it.
+		if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+			request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+			request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+			request.setAttribute("org.apache.tomcat.sendfile.end", size);
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = 0;
+			while (position < size) {
+				position += channel.transferTo(position, size - position, out);
+			}
+		}
+	}
+
+}
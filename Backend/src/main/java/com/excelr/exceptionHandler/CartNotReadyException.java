@@ -0,0 +1,17 @@
+package com.excelr.exceptionHandler;
+
+import com.excelr.model.CartView;
+
+public class CartNotReadyException extends RuntimeException {
+
+	private final CartView cart;
+
+	public CartNotReadyException(CartView cart) {
+		super("Some items in the cart are unavailable");
+		this.cart = cart;
+	}
+
+	public CartView getCart() {
+		return cart;
+	}
+}
@@ -1,14 +1,38 @@
 package com.excelr.exceptionHandler;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.excelr.model.CartView;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 	@ExceptionHandler(IllegalArgumentException.class)
 	public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
 	}
+
+	@ExceptionHandler(InsufficientStockException.class)
+	public ResponseEntity<String> handleInsufficientStockException(InsufficientStockException ex) {
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+	}
+
+	@ExceptionHandler(CartNotReadyException.class)
+	public ResponseEntity<CartView> handleCartNotReadyException(CartNotReadyException ex) {
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getCart());
+	}
+
+	@ExceptionHandler(PaymentGatewayException.class)
+	public ResponseEntity<String> handlePaymentGatewayException(PaymentGatewayException ex) {
+		return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(ex.getMessage());
+	}
+
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<String> handleRejectedExecutionException(RejectedExecutionException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Server is busy, please retry later");
+	}
 }
@@ -0,0 +1,15 @@
+package com.excelr.exceptionHandler;
+
+public class InsufficientStockException extends RuntimeException {
+
+	private final Long productId;
+
+	public InsufficientStockException(Long productId) {
+		super("Insufficient stock for product " + productId);
+		this.productId = productId;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+}
@@ -0,0 +1,10 @@
+package com.excelr.model;
+
+import lombok.Value;
+
+@Value
+public class AuthenticatedUser {
+	Integer id;
+	String username;
+	Role role;
+}
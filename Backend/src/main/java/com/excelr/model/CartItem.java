@@ -0,0 +1,15 @@
+package com.excelr.model;
+
+import lombok.Value;
+
+@Value
+public class CartItem {
+	Long productId;
+	String name;
+	String image;
+	double unitPrice;
+	int quantity;
+	int available;
+	double lineTotal;
+	CartItemStatus status;
+}
@@ -0,0 +1,5 @@
+package com.excelr.model;
+
+public enum CartItemStatus {
+	OK, INSUFFICIENT_STOCK, OUT_OF_STOCK, NOT_FOUND
+}
@@ -0,0 +1,17 @@
+package com.excelr.model;
+
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * A cart priced and stock-checked against the catalog at the time it was
+ * built. Only lines with status {@code OK} count towards the total.
+ */
+@Value
+public class CartView {
+	List<CartItem> items;
+	int itemCount;
+	double total;
+	boolean checkoutReady;
+}
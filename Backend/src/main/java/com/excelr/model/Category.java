@@ -1,12 +1,16 @@
 package com.excelr.model;
 
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -27,6 +31,14 @@ public class Category {
 	private String name;
 	private String description;
 	private String image;
+	@Enumerated(EnumType.STRING)
+	private ImageStatus imageStatus;
+	@JsonIgnore
+	private String imageVariantWidths;
 	@OneToMany(mappedBy = "category", cascade = CascadeType.ALL, orphanRemoval = true)
 	private List<Subcategory> subCategory;
+
+	public Map<String, String> getImageVariants() {
+		return ImageVariants.urls(image, imageVariantWidths);
+	}
 }
@@ -0,0 +1,17 @@
+package com.excelr.model;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Value;
+
+@Value
+public class CategoryTreeNode {
+	Long id;
+	String name;
+	String description;
+	String image;
+	Map<String, String> imageVariants;
+	long productCount;
+	List<SubcategoryTreeNode> subCategory;
+}
@@ -0,0 +1,35 @@
+package com.excelr.model;
+
+public enum ExportFormat {
+	XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+	CSV("csv", "text/csv"),
+	NDJSON("ndjson", "application/x-ndjson");
+
+	private final String extension;
+	private final String contentType;
+
+	ExportFormat(String extension, String contentType) {
+		this.extension = extension;
+		this.contentType = contentType;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public static ExportFormat from(String value) {
+		if (value == null || value.isBlank()) {
+			return XLSX;
+		}
+		for (ExportFormat format : values()) {
+			if (format.extension.equalsIgnoreCase(value.trim())) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported export format: " + value + ". Allowed: xlsx, csv, ndjson");
+	}
+}
@@ -0,0 +1,42 @@
+package com.excelr.model;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class ExportJob {
+	private final String id;
+	private final ExportFormat format;
+	private final Instant submittedAt;
+	private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+	private volatile long rowsWritten;
+	private volatile long totalRows;
+	private volatile long sizeBytes;
+	private volatile Instant startedAt;
+	private volatile Instant finishedAt;
+	private volatile Instant expiresAt;
+	private volatile String error;
+	@JsonIgnore
+	private volatile Path file;
+
+	public Long getEtaSeconds() {
+		if (status != ExportJobStatus.RUNNING || startedAt == null || rowsWritten == 0 || totalRows <= rowsWritten) {
+			return status == ExportJobStatus.COMPLETED ? 0L : null;
+		}
+		long elapsedMillis = Duration.between(startedAt, Instant.now()).toMillis();
+		return elapsedMillis * (totalRows - rowsWritten) / rowsWritten / 1000;
+	}
+
+	public String getFileName() {
+		return "Products-" + id + "." + format.getExtension();
+	}
+}
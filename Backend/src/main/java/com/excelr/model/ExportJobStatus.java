@@ -0,0 +1,8 @@
+package com.excelr.model;
+
+public enum ExportJobStatus {
+	QUEUED,
+	RUNNING,
+	COMPLETED,
+	FAILED
+}
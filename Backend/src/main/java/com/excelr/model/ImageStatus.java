@@ -0,0 +1,7 @@
+package com.excelr.model;
+
+public enum ImageStatus {
+	PENDING,
+	READY,
+	FAILED
+}
@@ -0,0 +1,37 @@
+package com.excelr.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Naming scheme for the resized copies generated next to each uploaded image.
+ * A variant of object {@code key} at width {@code w} is stored as {@code w<w>_<key>},
+ * so its URL can be derived from the original URL and the list of widths recorded
+ * on the entity.
+ */
+public final class ImageVariants {
+
+	public static final int[] WIDTHS = {128, 320, 800};
+
+	private ImageVariants() {
+	}
+
+	public static String key(String key, int width) {
+		return "w" + width + "_" + key;
+	}
+
+	public static Map<String, String> urls(String imageUrl, String widths) {
+		if (imageUrl == null || widths == null || widths.isBlank()) {
+			return Collections.emptyMap();
+		}
+		int slash = imageUrl.lastIndexOf('/');
+		String base = imageUrl.substring(0, slash + 1);
+		String key = imageUrl.substring(slash + 1);
+		Map<String, String> urls = new LinkedHashMap<>();
+		for (String width : widths.split(",")) {
+			urls.put(width, base + key(key, Integer.parseInt(width.trim())));
+		}
+		return urls;
+	}
+}
@@ -0,0 +1,35 @@
+package com.excelr.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "object_deletion", indexes = @Index(name = "idx_object_deletion_due", columnList = "nextAttemptAt, id"))
+public class ObjectDeletion {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	@Column(nullable = false, length = 512)
+	private String objectKey;
+	private int attempts;
+	@Column(nullable = false)
+	private Instant nextAttemptAt;
+	private Instant createdAt;
+
+	public ObjectDeletion(String objectKey, Instant now) {
+		this.objectKey = objectKey;
+		this.nextAttemptAt = now;
+		this.createdAt = now;
+	}
+}
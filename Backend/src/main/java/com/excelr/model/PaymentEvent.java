@@ -0,0 +1,54 @@
+package com.excelr.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "payment_event", indexes = {
+		@Index(name = "idx_payment_event_due", columnList = "status, nextAttemptAt, id"),
+		@Index(name = "idx_payment_event_claim", columnList = "claimToken")
+})
+public class PaymentEvent {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	@Column(nullable = false, unique = true, length = 64)
+	private String eventId;
+	@Lob
+	@Column(nullable = false)
+	private String payload;
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private PaymentEventStatus status = PaymentEventStatus.PENDING;
+	private int attempts;
+	// Doubles as the claim lease: a consumer pushes it forward while it applies the event
+	@Column(nullable = false)
+	private Instant nextAttemptAt;
+	@Column(length = 36)
+	private String claimToken;
+	@Column(length = 500)
+	private String lastError;
+	private Instant receivedAt;
+	private Instant processedAt;
+
+	public PaymentEvent(String eventId, String payload, Instant receivedAt) {
+		this.eventId = eventId;
+		this.payload = payload;
+		this.receivedAt = receivedAt;
+		this.nextAttemptAt = receivedAt;
+	}
+}
@@ -0,0 +1,5 @@
+package com.excelr.model;
+
+public enum PaymentEventStatus {
+	PENDING, PROCESSED, FAILED
+}
@@ -0,0 +1,37 @@
+package com.excelr.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "payment_order", indexes = {
+		@Index(name = "idx_payment_order_gateway_id", columnList = "gatewayOrderId")
+})
+public class PaymentOrder {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	@Column(nullable = false, unique = true, length = 40)
+	private String receipt;
+	private Integer userId;
+	private String gatewayOrderId;
+	private long amountPaise;
+	private String currency;
+	@Enumerated(EnumType.STRING)
+	private PaymentOrderStatus status;
+	private Long reservationId;
+	private Instant createdAt;
+}
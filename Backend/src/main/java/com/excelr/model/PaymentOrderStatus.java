@@ -0,0 +1,5 @@
+package com.excelr.model;
+
+public enum PaymentOrderStatus {
+	PENDING, CREATED, FAILED, PAID
+}
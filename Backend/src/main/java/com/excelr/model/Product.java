@@ -4,11 +4,15 @@ import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,6 +22,13 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
+@Table(indexes = {
+		// Keyset slices (ProductRepositoryImpl.findProductsAfter) for every supported sort, with and without a subcategory
+		@Index(name = "idx_product_price", columnList = "price, id"),
+		@Index(name = "idx_product_rating", columnList = "rating, id"),
+		@Index(name = "idx_product_subcategory_price", columnList = "subcategory_id, price, id"),
+		@Index(name = "idx_product_subcategory_rating", columnList = "subcategory_id, rating, id")
+})
 public class Product {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,6 +39,9 @@ public class Product {
 	private String brand;
 	private Float rating;
 	private String image;
+	@Enumerated(EnumType.STRING)
+	private ImageStatus imageStatus;
+	private String imageVariantWidths;
 	@Column(length = 1000)
 	private String description;
 	@ManyToOne
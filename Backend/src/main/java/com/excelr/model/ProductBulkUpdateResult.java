@@ -0,0 +1,16 @@
+package com.excelr.model;
+
+import java.util.List;
+
+import lombok.Value;
+
+@Value
+public class ProductBulkUpdateResult {
+	int received;
+	int updated;
+	int notFound;
+	int invalid;
+	int failed;
+	long durationMillis;
+	List<ProductUpdateOutcome> outcomes;
+}
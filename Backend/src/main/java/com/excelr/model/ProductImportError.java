@@ -0,0 +1,9 @@
+package com.excelr.model;
+
+import lombok.Value;
+
+@Value
+public class ProductImportError {
+	long row;
+	String message;
+}
@@ -0,0 +1,15 @@
+package com.excelr.model;
+
+import java.util.List;
+
+import lombok.Value;
+
+@Value
+public class ProductImportResult {
+	long rowsRead;
+	long imported;
+	long failed;
+	List<ProductImportError> errors;
+	boolean errorsTruncated;
+	long durationMillis;
+}
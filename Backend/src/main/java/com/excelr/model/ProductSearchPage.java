@@ -0,0 +1,21 @@
+package com.excelr.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchPage {
+	private List<Productdto> content;
+	private long totalHits;
+	// Set when a short last token matched too many terms, making totalHits a lower bound,
+	// or when there are more hits than the first 1000 that can be paged through
+	private boolean truncated;
+	private String sort;
+	private int limit;
+	private String nextPageToken;
+}
@@ -0,0 +1,20 @@
+package com.excelr.model;
+
+public enum ProductSearchSort {
+	RELEVANCE,
+	PRICE_ASC,
+	PRICE_DESC,
+	RATING;
+
+	public static ProductSearchSort from(String value) {
+		if (value == null || value.isBlank()) {
+			return RELEVANCE;
+		}
+		for (ProductSearchSort sort : values()) {
+			if (sort.name().equalsIgnoreCase(value.trim())) {
+				return sort;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported sort: " + value + ". Allowed: relevance, price_asc, price_desc, rating");
+	}
+}
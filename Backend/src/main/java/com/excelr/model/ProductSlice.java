@@ -0,0 +1,18 @@
+package com.excelr.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSlice {
+	private List<Productdto> content;
+	private int size;
+	private boolean hasNext;
+	private String nextCursor;
+	private Long totalElements;
+}
@@ -0,0 +1,19 @@
+package com.excelr.model;
+
+public enum ProductSortKey {
+	ID,
+	PRICE,
+	RATING;
+
+	public static ProductSortKey from(String value) {
+		if (value == null || value.isBlank()) {
+			return ID;
+		}
+		for (ProductSortKey key : values()) {
+			if (key.name().equalsIgnoreCase(value.trim())) {
+				return key;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported sort: " + value + ". Allowed: id, price, rating");
+	}
+}
@@ -0,0 +1,14 @@
+package com.excelr.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductStockUpdate {
+	private Long id;
+	private Double price;
+	private Integer quantity;
+}
@@ -0,0 +1,13 @@
+package com.excelr.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Value;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductUpdateOutcome {
+	Long id;
+	ProductUpdateStatus status;
+	String message;
+}
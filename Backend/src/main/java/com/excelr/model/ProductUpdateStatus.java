@@ -0,0 +1,8 @@
+package com.excelr.model;
+
+public enum ProductUpdateStatus {
+	UPDATED,
+	NOT_FOUND,
+	INVALID,
+	FAILED
+}
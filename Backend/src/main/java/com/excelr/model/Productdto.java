@@ -1,5 +1,7 @@
 package com.excelr.model;
 
+import java.util.Map;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,4 +19,11 @@ public class Productdto {
     private String image;
     private Float rating;
     private Integer quantity;
+    private Map<String, String> imageVariants;
+
+    public Productdto(Long id, String name, double price, String description, String subcategoryName, String brand,
+            String image, Float rating, Integer quantity, String imageVariantWidths) {
+        this(id, name, price, description, subcategoryName, brand, image, rating, quantity,
+                ImageVariants.urls(image, imageVariantWidths));
+    }
 }
@@ -0,0 +1,15 @@
+package com.excelr.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationLine {
+	private Long productId;
+	private int quantity;
+}
@@ -0,0 +1,8 @@
+package com.excelr.model;
+
+public enum ReservationStatus {
+	HELD,
+	CONFIRMED,
+	RELEASED,
+	EXPIRED
+}
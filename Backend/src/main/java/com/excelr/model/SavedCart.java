@@ -0,0 +1,36 @@
+package com.excelr.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OrderColumn;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "saved_cart")
+public class SavedCart {
+	@Id
+	private Integer userId;
+	private Instant updatedAt;
+	// Lets a replica detect that another one saved the cart after it was loaded
+	@Version
+	@Column(nullable = false)
+	private Long version;
+	@ElementCollection(fetch = FetchType.EAGER)
+	@CollectionTable(name = "saved_cart_line", joinColumns = @JoinColumn(name = "user_id"))
+	@OrderColumn(name = "position")
+	private List<CartLine> lines = new ArrayList<>();
+}
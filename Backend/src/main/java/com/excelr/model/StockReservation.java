@@ -0,0 +1,41 @@
+package com.excelr.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "stock_reservation", indexes = {
+		@Index(name = "idx_stock_reservation_order", columnList = "orderId"),
+		@Index(name = "idx_stock_reservation_expiry", columnList = "status, expiresAt")
+})
+public class StockReservation {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	private String orderId;
+	@Enumerated(EnumType.STRING)
+	private ReservationStatus status;
+	private Instant createdAt;
+	private Instant expiresAt;
+	@ElementCollection(fetch = FetchType.EAGER)
+	@CollectionTable(name = "stock_reservation_line", joinColumns = @JoinColumn(name = "reservation_id"))
+	private List<ReservationLine> lines = new ArrayList<>();
+}
@@ -0,0 +1,11 @@
+package com.excelr.model;
+
+import lombok.Value;
+
+@Value
+public class SubcategoryTreeNode {
+	Long id;
+	String name;
+	String description;
+	long productCount;
+}
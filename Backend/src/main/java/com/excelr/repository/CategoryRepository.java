@@ -1,9 +1,32 @@
 package com.excelr.repository;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
 import com.excelr.model.Category;
+import com.excelr.model.ImageStatus;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
+	@Query("SELECT COALESCE(c.imageStatus, com.excelr.model.ImageStatus.READY) FROM Category c WHERE c.id = :id")
+	Optional<ImageStatus> findImageStatusById(@Param("id") Long id);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE Category c SET c.imageStatus = :status, c.imageVariantWidths = :variantWidths "
+			+ "WHERE c.id = :id AND c.image = :image")
+	int updateImageStatus(@Param("id") Long id, @Param("image") String image, @Param("status") ImageStatus status,
+			@Param("variantWidths") String variantWidths);
 
+	@Transactional
+	@Modifying
+	@Query("UPDATE Category c SET c.image = :previousImage, c.imageVariantWidths = :previousVariantWidths, "
+			+ "c.imageStatus = :status WHERE c.id = :id AND c.image = :image")
+	int revertImage(@Param("id") Long id, @Param("image") String image, @Param("previousImage") String previousImage,
+			@Param("previousVariantWidths") String previousVariantWidths, @Param("status") ImageStatus status);
 }
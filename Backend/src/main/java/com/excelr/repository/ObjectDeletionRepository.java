@@ -0,0 +1,19 @@
+package com.excelr.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.excelr.model.ObjectDeletion;
+
+@Repository
+public interface ObjectDeletionRepository extends JpaRepository<ObjectDeletion, Long> {
+
+	@Query("SELECT d FROM ObjectDeletion d WHERE d.nextAttemptAt <= :now ORDER BY d.id")
+	List<ObjectDeletion> findDue(@Param("now") Instant now, Pageable pageable);
+}
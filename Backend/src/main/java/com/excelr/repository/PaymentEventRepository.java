@@ -0,0 +1,56 @@
+package com.excelr.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.excelr.model.PaymentEvent;
+import com.excelr.model.PaymentEventStatus;
+
+@Repository
+public interface PaymentEventRepository extends JpaRepository<PaymentEvent, Long> {
+
+	@Query("SELECT e.id FROM PaymentEvent e WHERE e.status = com.excelr.model.PaymentEventStatus.PENDING "
+			+ "AND e.nextAttemptAt <= :now ORDER BY e.id")
+	List<Long> findDueIds(@Param("now") Instant now, Pageable pageable);
+
+	// Re-checks due-ness in the UPDATE, so when consumers on several instances race for a row only one claims it
+	@Modifying
+	@Transactional
+	@Query("UPDATE PaymentEvent e SET e.claimToken = :token, e.nextAttemptAt = :leaseUntil WHERE e.id IN :ids "
+			+ "AND e.status = com.excelr.model.PaymentEventStatus.PENDING AND e.nextAttemptAt <= :now")
+	int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") Instant now,
+			@Param("leaseUntil") Instant leaseUntil);
+
+	@Query("SELECT e FROM PaymentEvent e WHERE e.claimToken = :token "
+			+ "AND e.status = com.excelr.model.PaymentEventStatus.PENDING ORDER BY e.id")
+	List<PaymentEvent> findClaimed(@Param("token") String token);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE PaymentEvent e SET e.status = com.excelr.model.PaymentEventStatus.PROCESSED, "
+			+ "e.processedAt = :now, e.claimToken = NULL WHERE e.id IN :ids")
+	int markProcessed(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE PaymentEvent e SET e.status = :status, e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, "
+			+ "e.lastError = :error, e.claimToken = NULL WHERE e.id = :id")
+	int markFailedAttempt(@Param("id") Long id, @Param("status") PaymentEventStatus status,
+			@Param("attempts") int attempts, @Param("nextAttemptAt") Instant nextAttemptAt,
+			@Param("error") String error);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM PaymentEvent e WHERE e.status = com.excelr.model.PaymentEventStatus.PROCESSED "
+			+ "AND e.processedAt < :before")
+	int deleteProcessedBefore(@Param("before") Instant before);
+}
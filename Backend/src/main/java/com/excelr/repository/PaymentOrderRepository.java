@@ -0,0 +1,32 @@
+package com.excelr.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.excelr.model.PaymentOrder;
+import com.excelr.model.PaymentOrderStatus;
+
+@Repository
+public interface PaymentOrderRepository extends JpaRepository<PaymentOrder, Long> {
+
+	Optional<PaymentOrder> findByReceipt(String receipt);
+
+	Optional<PaymentOrder> findByGatewayOrderId(String gatewayOrderId);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE PaymentOrder o SET o.status = :status WHERE o.gatewayOrderId IN :gatewayOrderIds")
+	int updateStatuses(@Param("gatewayOrderIds") Collection<String> gatewayOrderIds,
+			@Param("status") PaymentOrderStatus status);
+
+	@Query("SELECT o.receipt FROM PaymentOrder o WHERE o.gatewayOrderId IN :gatewayOrderIds")
+	List<String> findReceipts(@Param("gatewayOrderIds") Collection<String> gatewayOrderIds);
+}
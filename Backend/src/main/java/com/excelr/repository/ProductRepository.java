@@ -1,26 +1,95 @@
 package com.excelr.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.excelr.model.ImageStatus;
 import com.excelr.model.Product;
+import com.excelr.model.Productdto;
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
-	
-	Page<Product> findBySubcategoryId(Long subcategoryId, Pageable pageable);
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 	
 	Page<Product> findAll(Pageable pageable);
-	
-	@Query("SELECT p FROM Product p " +
-		       "LEFT JOIN p.subcategory s " +
-		       "LEFT JOIN s.category c " +
-		       "WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-		       "OR LOWER(s.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-		       "OR LOWER(c.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-		List<Product> searchProducts(String keyword);
+
+	@Query(value = "SELECT new com.excelr.model.Productdto(p.id, p.name, p.price, p.description, s.name, "
+			+ "p.brand, p.image, p.rating, p.quantity, p.imageVariantWidths) FROM Product p JOIN p.subcategory s",
+			countQuery = "SELECT COUNT(p) FROM Product p")
+	Page<Productdto> findProductPage(Pageable pageable);
+
+	@Query(value = "SELECT new com.excelr.model.Productdto(p.id, p.name, p.price, p.description, s.name, "
+			+ "p.brand, p.image, p.rating, p.quantity, p.imageVariantWidths) FROM Product p JOIN p.subcategory s "
+			+ "WHERE s.id = :subcategoryId",
+			countQuery = "SELECT COUNT(p) FROM Product p WHERE p.subcategory.id = :subcategoryId")
+	Page<Productdto> findProductPageBySubcategoryId(@Param("subcategoryId") Long subcategoryId, Pageable pageable);
+
+	@Query("SELECT new com.excelr.model.Productdto(p.id, p.name, p.price, p.description, s.name, "
+			+ "p.brand, p.image, p.rating, p.quantity, p.imageVariantWidths) FROM Product p JOIN p.subcategory s "
+			+ "WHERE p.id IN :ids")
+	List<Productdto> findProductDtosByIds(@Param("ids") Collection<Long> ids);
+
+	long countBySubcategoryId(Long subcategoryId);
+
+	// A product without a quantity counts as out of stock rather than failing the comparison
+	@Modifying
+	@Transactional
+	@Query("UPDATE Product p SET p.quantity = COALESCE(p.quantity, 0) - :quantity "
+			+ "WHERE p.id = :id AND COALESCE(p.quantity, 0) >= :quantity")
+	int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE Product p SET p.quantity = COALESCE(p.quantity, 0) + :quantity WHERE p.id = :id")
+	int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+	@Query("SELECT COALESCE(p.quantity, 0) FROM Product p WHERE p.id = :id")
+	Optional<Integer> findQuantityById(@Param("id") Long id);
+
+	// One round trip prices and stock-checks a whole cart: id, name, price, image, quantity
+	@Query("SELECT p.id, p.name, p.price, p.image, COALESCE(p.quantity, 0) FROM Product p WHERE p.id IN :ids")
+	List<Object[]> findCartRows(@Param("ids") Collection<Long> ids);
+
+	@Query("SELECT p.image FROM Product p WHERE p.subcategory.id = :subcategoryId AND p.image IS NOT NULL")
+	List<String> findImagesBySubcategoryId(@Param("subcategoryId") Long subcategoryId);
+
+	@Query("SELECT p.image FROM Product p WHERE p.subcategory.category.id = :categoryId AND p.image IS NOT NULL")
+	List<String> findImagesByCategoryId(@Param("categoryId") Long categoryId);
+
+	@Query("SELECT p FROM Product p LEFT JOIN FETCH p.subcategory WHERE p.id > :lastId ORDER BY p.id")
+	List<Product> findChunkAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+	@Query("SELECT COALESCE(p.imageStatus, com.excelr.model.ImageStatus.READY) FROM Product p WHERE p.id = :id")
+	Optional<ImageStatus> findImageStatusById(@Param("id") Long id);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE Product p SET p.imageStatus = :status, p.imageVariantWidths = :variantWidths "
+			+ "WHERE p.id = :id AND p.image = :image")
+	int updateImageStatus(@Param("id") Long id, @Param("image") String image, @Param("status") ImageStatus status,
+			@Param("variantWidths") String variantWidths);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE Product p SET p.image = :previousImage, p.imageVariantWidths = :previousVariantWidths, "
+			+ "p.imageStatus = :status WHERE p.id = :id AND p.image = :image")
+	int revertImage(@Param("id") Long id, @Param("image") String image, @Param("previousImage") String previousImage,
+			@Param("previousVariantWidths") String previousVariantWidths, @Param("status") ImageStatus status);
+
+	@Query("SELECT p.id FROM Product p WHERE p.subcategory.id = :subcategoryId")
+	List<Long> findIdsBySubcategoryId(@Param("subcategoryId") Long subcategoryId);
+
+	@Query("SELECT p.id FROM Product p WHERE p.subcategory.category.id = :categoryId")
+	List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+	@Query("SELECT p.subcategory.id, COUNT(p) FROM Product p GROUP BY p.subcategory.id")
+	List<Object[]> countGroupedBySubcategory();
 }
\ No newline at end of file
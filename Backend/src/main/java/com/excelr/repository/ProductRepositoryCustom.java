@@ -0,0 +1,12 @@
+package com.excelr.repository;
+
+import java.util.List;
+
+import com.excelr.model.ProductSortKey;
+import com.excelr.model.Productdto;
+
+public interface ProductRepositoryCustom {
+
+	List<Productdto> findProductsAfter(Long subcategoryId, ProductSortKey sortKey, boolean descending,
+			Object lastValue, Long lastId, int limit);
+}
@@ -0,0 +1,77 @@
+package com.excelr.repository;
+
+import java.util.List;
+
+import com.excelr.model.ProductSortKey;
+import com.excelr.model.Productdto;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Productdto> findProductsAfter(Long subcategoryId, ProductSortKey sortKey, boolean descending,
+			Object lastValue, Long lastId, int limit) {
+		String column = sortColumn(sortKey);
+		String comparison = descending ? "<" : ">";
+		String order = descending ? " DESC" : " ASC";
+
+		StringBuilder jpql = new StringBuilder("SELECT new com.excelr.model.Productdto(p.id, p.name, p.price, "
+				+ "p.description, s.name, p.brand, p.image, p.rating, p.quantity, p.imageVariantWidths) "
+				+ "FROM Product p JOIN p.subcategory s WHERE 1 = 1");
+		if (subcategoryId != null) {
+			jpql.append(" AND s.id = :subcategoryId");
+		}
+		if (lastId != null) {
+			if (sortKey == ProductSortKey.ID) {
+				jpql.append(" AND p.id ").append(comparison).append(" :lastId");
+			} else if (lastValue == null) {
+				// Missing ratings sort lowest: first ascending, last descending
+				jpql.append(descending
+						? " AND " + column + " IS NULL AND p.id < :lastId"
+						: " AND (" + column + " IS NOT NULL OR p.id > :lastId)");
+			} else {
+				jpql.append(" AND (").append(column).append(' ').append(comparison).append(" :lastValue OR (")
+						.append(column).append(" = :lastValue AND p.id ").append(comparison).append(" :lastId)");
+				if (descending && sortKey == ProductSortKey.RATING) {
+					jpql.append(" OR ").append(column).append(" IS NULL");
+				}
+				jpql.append(')');
+			}
+		}
+		// No NULLS FIRST/LAST clause: MySQL would emulate it with an expression no index can serve
+		if (sortKey != ProductSortKey.ID) {
+			jpql.append(" ORDER BY ").append(column).append(order).append(", p.id").append(order);
+		} else {
+			jpql.append(" ORDER BY p.id").append(order);
+		}
+
+		TypedQuery<Productdto> query = entityManager.createQuery(jpql.toString(), Productdto.class);
+		if (subcategoryId != null) {
+			query.setParameter("subcategoryId", subcategoryId);
+		}
+		if (lastId != null) {
+			query.setParameter("lastId", lastId);
+			if (sortKey != ProductSortKey.ID && lastValue != null) {
+				query.setParameter("lastValue", lastValue);
+			}
+		}
+		return query.setMaxResults(limit).getResultList();
+	}
+
+	private static String sortColumn(ProductSortKey sortKey) {
+		switch (sortKey) {
+		case PRICE:
+			return "p.price";
+		case RATING:
+			return "p.rating";
+		default:
+			return "p.id";
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package com.excelr.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.excelr.model.SavedCart;
+
+@Repository
+public interface SavedCartRepository extends JpaRepository<SavedCart, Integer> {
+}
@@ -0,0 +1,53 @@
+package com.excelr.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.excelr.model.ReservationStatus;
+import com.excelr.model.StockReservation;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+	Optional<StockReservation> findFirstByOrderIdOrderByIdDesc(String orderId);
+
+	// A query rather than findById, so callers sharing a persistence context still see the current status
+	@Query("SELECT r.status FROM StockReservation r WHERE r.id = :id")
+	Optional<ReservationStatus> findStatusById(@Param("id") Long id);
+
+	@Query("SELECT r.id FROM StockReservation r WHERE r.status = com.excelr.model.ReservationStatus.HELD "
+			+ "AND r.expiresAt < :now ORDER BY r.expiresAt")
+	List<Long> findExpiredIds(@Param("now") Instant now, Pageable pageable);
+
+	// Compare-and-set on the status so confirm, release and expiry never both win for one reservation
+	@Modifying
+	@Transactional
+	@Query("UPDATE StockReservation r SET r.status = :to WHERE r.id = :id AND r.status = :from")
+	int transition(@Param("id") Long id, @Param("from") ReservationStatus from, @Param("to") ReservationStatus to);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE StockReservation r SET r.orderId = :orderId WHERE r.id = :id AND r.orderId IS NULL")
+	int attachOrder(@Param("id") Long id, @Param("orderId") String orderId);
+
+	// Bulk confirmation for webhook batches; orders whose hold already lapsed are confirmed one by one
+	@Modifying
+	@Transactional
+	@Query("UPDATE StockReservation r SET r.status = com.excelr.model.ReservationStatus.CONFIRMED "
+			+ "WHERE r.orderId IN :orderIds AND r.status = com.excelr.model.ReservationStatus.HELD")
+	int confirmHeld(@Param("orderIds") Collection<String> orderIds);
+
+	@Query("SELECT DISTINCT r.orderId FROM StockReservation r WHERE r.orderId IN :orderIds "
+			+ "AND r.status = com.excelr.model.ReservationStatus.CONFIRMED")
+	List<String> findConfirmedOrderIds(@Param("orderIds") Collection<String> orderIds);
+}
@@ -1,8 +1,10 @@
 package com.excelr.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.excelr.model.Subcategory;
@@ -11,4 +13,10 @@ public interface SubcategoryRepository extends JpaRepository<Subcategory, Long>
 	
 	Optional<Subcategory>findByName(String name);
 
+	@Query("SELECT s.id, s.name, s.description, s.category.id FROM Subcategory s ORDER BY s.id")
+	List<Object[]> findTreeRows();
+
+	@Query("SELECT s.name, s.id, c.name FROM Subcategory s JOIN s.category c")
+	List<Object[]> findNameLookupRows();
+
 }
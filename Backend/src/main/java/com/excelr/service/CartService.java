@@ -0,0 +1,321 @@
+package com.excelr.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.excelr.model.CartItem;
+import com.excelr.model.CartItemStatus;
+import com.excelr.model.CartLine;
+import com.excelr.model.CartView;
+import com.excelr.model.SavedCart;
+import com.excelr.repository.ProductRepository;
+import com.excelr.repository.SavedCartRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-user carts kept in memory, so adding and removing items never touches
+ * the database. Idle carts are evicted after {@code cart.ttl.minutes}. With
+ * persistence enabled, changed carts are written behind on a schedule (and on
+ * eviction) and reloaded on the user's next visit. Prices and stock are never
+ * stored in the cart; {@link #view(Integer)} reads them for all lines in one
+ * query.
+ * <p>
+ * Each replica only reloads a cart it does not hold, so requests for a user
+ * must be routed to the same replica (sticky sessions) to see their latest
+ * changes. Saved carts are versioned: if another replica saved the cart since
+ * it was loaded here, that copy wins and this one is dropped and reloaded on
+ * next access instead of overwriting it.
+ */
+@Slf4j
+@Service
+public class CartService {
+
+    private final ProductRepository productRepository;
+    private final SavedCartRepository savedCartRepository;
+    private final long ttlMinutes;
+    private final long maximumSize;
+    private final int maxLines;
+    private final int maxQuantity;
+    private final boolean persist;
+
+    private Cache<Integer, Cart> carts;
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+
+    public CartService(ProductRepository productRepository, SavedCartRepository savedCartRepository,
+            @Value("${cart.ttl.minutes:120}") long ttlMinutes, @Value("${cart.maximum-size:100000}") long maximumSize,
+            @Value("${cart.max-lines:100}") int maxLines, @Value("${cart.max-quantity:100}") int maxQuantity,
+            @Value("${cart.persist.enabled:true}") boolean persist) {
+        this.productRepository = productRepository;
+        this.savedCartRepository = savedCartRepository;
+        this.ttlMinutes = ttlMinutes;
+        this.maximumSize = maximumSize;
+        this.maxLines = maxLines;
+        this.maxQuantity = maxQuantity;
+        this.persist = persist;
+    }
+
+    @PostConstruct
+    public void init() {
+        carts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .<Integer, Cart>removalListener((userId, cart, cause) -> {
+                    if (cause.wasEvicted() && userId != null && cart != null && dirty.remove(userId)) {
+                        write(userId, cart);
+                    }
+                })
+                .build();
+    }
+
+    public CartView view(Integer userId) {
+        return price(cart(userId).lines());
+    }
+
+    public List<CartLine> lines(Integer userId) {
+        return cart(userId).lines();
+    }
+
+    public void addItem(Integer userId, Long productId, int quantity) {
+        validate(productId, quantity);
+        cart(userId).add(productId, quantity, maxLines, maxQuantity);
+        dirty.add(userId);
+    }
+
+    public void setQuantity(Integer userId, Long productId, int quantity) {
+        if (quantity == 0) {
+            removeItem(userId, productId);
+            return;
+        }
+        validate(productId, quantity);
+        cart(userId).set(productId, quantity, maxLines);
+        dirty.add(userId);
+    }
+
+    public void replace(Integer userId, List<CartLine> lines) {
+        Map<Long, Integer> replacement = new LinkedHashMap<>();
+        for (CartLine line : lines) {
+            validate(line.getProductId(), line.getQuantity());
+            replacement.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        if (replacement.size() > maxLines) {
+            throw new IllegalArgumentException("A cart holds at most " + maxLines + " products");
+        }
+        if (replacement.values().stream().anyMatch(quantity -> quantity > maxQuantity)) {
+            throw new IllegalArgumentException("At most " + maxQuantity + " of a product per order");
+        }
+        cart(userId).replace(replacement);
+        dirty.add(userId);
+    }
+
+    public void removeItem(Integer userId, Long productId) {
+        cart(userId).remove(productId);
+        dirty.add(userId);
+    }
+
+    public void clear(Integer userId) {
+        cart(userId).replace(Map.of());
+        dirty.add(userId);
+    }
+
+    /**
+     * Prices the lines against the current catalog with one query. Lines for
+     * missing or under-stocked products are reported but left out of the total.
+     */
+    public CartView price(List<CartLine> lines) {
+        if (lines.isEmpty()) {
+            return new CartView(List.of(), 0, 0, false);
+        }
+        Map<Long, Object[]> rows = new HashMap<>();
+        for (Object[] row : productRepository.findCartRows(lines.stream().map(CartLine::getProductId).toList())) {
+            rows.put((Long) row[0], row);
+        }
+        List<CartItem> items = new ArrayList<>(lines.size());
+        long totalPaise = 0;
+        int itemCount = 0;
+        boolean ready = true;
+        for (CartLine line : lines) {
+            Object[] row = rows.get(line.getProductId());
+            if (row == null) {
+                items.add(new CartItem(line.getProductId(), null, null, 0, line.getQuantity(), 0, 0,
+                        CartItemStatus.NOT_FOUND));
+                ready = false;
+                continue;
+            }
+            double unitPrice = ((Number) row[2]).doubleValue();
+            int available = ((Number) row[4]).intValue();
+            CartItemStatus status = available <= 0 ? CartItemStatus.OUT_OF_STOCK
+                    : available < line.getQuantity() ? CartItemStatus.INSUFFICIENT_STOCK
+                    : CartItemStatus.OK;
+            // Totals are summed in paise so a long cart does not drift by floating point error
+            long linePaise = Math.round(unitPrice * 100) * line.getQuantity();
+            if (status == CartItemStatus.OK) {
+                totalPaise += linePaise;
+                itemCount += line.getQuantity();
+            } else {
+                ready = false;
+            }
+            items.add(new CartItem(line.getProductId(), (String) row[1], (String) row[3], unitPrice,
+                    line.getQuantity(), available, linePaise / 100.0, status));
+        }
+        return new CartView(items, itemCount, totalPaise / 100.0, ready);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.persist.flush.ms:5000}")
+    public void flush() {
+        if (!persist || dirty.isEmpty()) {
+            dirty.clear();
+            return;
+        }
+        // Unmarked before the lines are read, so a change made during the write marks the cart again
+        List<Integer> pending = List.copyOf(dirty);
+        dirty.removeAll(pending);
+        int written = 0;
+        int failed = 0;
+        for (Integer userId : pending) {
+            Cart cart = carts.getIfPresent(userId);
+            if (cart == null) {
+                continue;
+            }
+            if (write(userId, cart)) {
+                written++;
+            } else {
+                dirty.add(userId);
+                failed++;
+            }
+        }
+        log.info("Persisted {} carts, {} failed and will be retried", written, failed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private Cart cart(Integer userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("A cart needs a signed-in user");
+        }
+        return carts.get(userId, this::load);
+    }
+
+    private Cart load(Integer userId) {
+        Cart cart = new Cart();
+        if (persist) {
+            savedCartRepository.findById(userId).ifPresent(saved -> {
+                Map<Long, Integer> lines = new LinkedHashMap<>();
+                saved.getLines().forEach(line -> lines.put(line.getProductId(), line.getQuantity()));
+                cart.replace(lines);
+                cart.setVersion(saved.getVersion());
+            });
+        }
+        return cart;
+    }
+
+    /**
+     * Saves the cart, or deletes the saved row once it is empty. Returns false
+     * if the write failed and should be retried.
+     */
+    private boolean write(Integer userId, Cart cart) {
+        if (!persist) {
+            return true;
+        }
+        List<CartLine> lines = cart.lines();
+        Long version = cart.getVersion();
+        try {
+            if (!lines.isEmpty()) {
+                cart.setVersion(savedCartRepository.save(savedCart(userId, lines, version)).getVersion());
+            } else if (version != null) {
+                savedCartRepository.delete(savedCart(userId, lines, version));
+                cart.setVersion(null);
+            }
+            return true;
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            log.warn("Cart for user {} was saved elsewhere since it was loaded; reloading it", userId);
+            carts.invalidate(userId);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to persist cart for user {}: {}", userId, e.getMessage());
+            return false;
+        }
+    }
+
+    private static SavedCart savedCart(Integer userId, List<CartLine> lines, Long version) {
+        SavedCart saved = new SavedCart();
+        saved.setUserId(userId);
+        saved.setUpdatedAt(Instant.now());
+        saved.setLines(new ArrayList<>(lines));
+        saved.setVersion(version);
+        return saved;
+    }
+
+    private void validate(Long productId, int quantity) {
+        if (productId == null || quantity <= 0) {
+            throw new IllegalArgumentException("Each item needs a product id and a positive quantity");
+        }
+        if (quantity > maxQuantity) {
+            throw new IllegalArgumentException("At most " + maxQuantity + " of a product per order");
+        }
+    }
+
+    private static final class Cart {
+        private final LinkedHashMap<Long, Integer> lines = new LinkedHashMap<>();
+        // Version of the saved row this cart was loaded from or last written to
+        private Long version;
+
+        synchronized Long getVersion() {
+            return version;
+        }
+
+        synchronized void setVersion(Long version) {
+            this.version = version;
+        }
+
+        synchronized void add(Long productId, int quantity, int maxLines, int maxQuantity) {
+            int updated = lines.getOrDefault(productId, 0) + quantity;
+            if (updated > maxQuantity) {
+                throw new IllegalArgumentException("At most " + maxQuantity + " of a product per order");
+            }
+            set(productId, updated, maxLines);
+        }
+
+        synchronized void set(Long productId, int quantity, int maxLines) {
+            if (!lines.containsKey(productId) && lines.size() >= maxLines) {
+                throw new IllegalArgumentException("A cart holds at most " + maxLines + " products");
+            }
+            lines.put(productId, quantity);
+        }
+
+        synchronized void remove(Long productId) {
+            lines.remove(productId);
+        }
+
+        synchronized void replace(Map<Long, Integer> replacement) {
+            lines.clear();
+            lines.putAll(replacement);
+        }
+
+        synchronized List<CartLine> lines() {
+            List<CartLine> snapshot = new ArrayList<>(lines.size());
+            lines.forEach((productId, quantity) -> snapshot.add(new CartLine(productId, quantity)));
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.excelr.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the application as a one-off catalog generator:
+ * {@code java -jar app.jar --spring.profiles.active=generate --generate.products=10000000}.
+ * Exits once the rows are written, before the server would start serving.
+ */
+@Slf4j
+@Profile("generate")
+@Component
+public class CatalogGenerationRunner implements ApplicationRunner {
+
+    private final CatalogGenerator catalogGenerator;
+    private final ApplicationContext context;
+
+    public CatalogGenerationRunner(CatalogGenerator catalogGenerator, ApplicationContext context) {
+        this.catalogGenerator = catalogGenerator;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 0;
+        try {
+            catalogGenerator.generate();
+        } catch (RuntimeException e) {
+            log.error("Catalog generation failed", e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
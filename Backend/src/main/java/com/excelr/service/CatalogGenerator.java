@@ -0,0 +1,407 @@
+package com.excelr.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk-creates a synthetic catalog for scale and load testing: categories,
+ * subcategories, products and users. Every row is derived from
+ * {@code generate.seed} and its own ordinal only, so the same settings always
+ * give the same data however the work is split across writers. Brands and
+ * subcategories follow a Zipf distribution, prices are log-normal and ratings
+ * cluster around 4.
+ *
+ * <p>With {@code generate.output=jdbc} rows go straight in with parallel
+ * batched inserts, one commit per batch; {@code csv} writes one file per table
+ * plus a {@code load.sql} of {@code LOAD DATA} statements for MySQL. New ids
+ * continue after the current maximum, so running it again appends.
+ */
+@Slf4j
+@Service
+public class CatalogGenerator {
+
+    public static final List<String> ADJECTIVES = List.of(
+            "Wireless", "Compact", "Premium", "Portable", "Classic", "Smart", "Ultra", "Lightweight", "Pro", "Eco",
+            "Rugged", "Slim", "Deluxe", "Essential", "Vintage", "Modular");
+    public static final List<String> NOUNS = List.of(
+            "Speaker", "Headphones", "Charger", "Lamp", "Backpack", "Bottle", "Jacket", "Sneakers", "Watch",
+            "Camera", "Blender", "Chair", "Novel", "Helmet", "Keyboard", "Monitor", "Kettle", "Tent", "Desk",
+            "Router");
+
+    private static final String[] CATEGORY_NAMES = {
+            "Electronics", "Home", "Fashion", "Sports", "Books", "Beauty", "Toys", "Grocery", "Automotive",
+            "Garden", "Health", "Music", "Office", "Pets", "Baby", "Tools", "Travel", "Gaming", "Jewellery", "Art"};
+    private static final String[] FEATURES = {
+            "two year warranty", "fast shipping", "water resistant", "energy efficient", "recycled materials",
+            "gift ready packaging", "easy returns", "award winning design"};
+    private static final String[] SYLLABLES = {
+            "ac", "me", "zen", "ith", "no", "va", "or", "bit", "pi", "on", "sum", "mit", "ver", "tex", "lu", "men",
+            "au", "ra", "co", "balt"};
+
+    private static final double BRAND_SKEW = 1.1;
+    private static final double SUBCATEGORY_SKEW = 0.8;
+    private static final double MEDIAN_PRICE = 1500;
+
+    private static final String CATEGORY_COLUMNS = "id, name, description";
+    private static final String SUBCATEGORY_COLUMNS = "id, name, description, category_id";
+    private static final String PRODUCT_COLUMNS = "id, name, brand, description, price, rating, quantity, subcategory_id";
+    private static final String USER_COLUMNS = "id, username, password, email, role";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${generate.seed:42}")
+    private long seed;
+
+    @Value("${generate.categories:20}")
+    private int categories;
+
+    @Value("${generate.subcategories-per-category:10}")
+    private int subcategoriesPerCategory;
+
+    @Value("${generate.products:100000}")
+    private long products;
+
+    @Value("${generate.users:10000}")
+    private int users;
+
+    @Value("${generate.brands:500}")
+    private int brands;
+
+    @Value("${generate.stock:0}")
+    private int stock;
+
+    @Value("${generate.output:jdbc}")
+    private String output;
+
+    @Value("${generate.csv.dir:${java.io.tmpdir}/ecommerce-catalog}")
+    private String csvDir;
+
+    @Value("${generate.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${generate.writers:4}")
+    private int writers;
+
+    public CatalogGenerator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The brand at a popularity rank (0 is the most common), as it appears in
+     * generated product names.
+     */
+    public static String brandName(int rank) {
+        int base = SYLLABLES.length;
+        String name = SYLLABLES[rank % base] + SYLLABLES[(rank / base + rank * 7) % base];
+        String suffix = rank >= base * base ? String.valueOf(rank / (base * base)) : "";
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1) + suffix;
+    }
+
+    public void generate() {
+        if (categories <= 0 || subcategoriesPerCategory <= 0 || brands <= 0 || products < 0 || users < 0) {
+            throw new IllegalArgumentException("generate.* counts must not be negative, and categories, "
+                    + "subcategories-per-category and brands must be positive");
+        }
+        long started = System.currentTimeMillis();
+        Plan plan = new Plan(maxId("category"), maxId("subcategory"), maxId("product"), maxId("user"));
+        log.info("Generating {} categories, {} subcategories, {} products and {} users (seed {}, output {})",
+                categories, plan.subcategories, products, users, seed, output);
+
+        if ("csv".equalsIgnoreCase(output)) {
+            writeCsv(plan);
+        } else if ("jdbc".equalsIgnoreCase(output)) {
+            insert(plan);
+        } else {
+            throw new IllegalArgumentException("generate.output must be jdbc or csv, not " + output);
+        }
+        log.info("Catalog generated in {} ms", System.currentTimeMillis() - started);
+    }
+
+    private void insert(Plan plan) {
+        insertRows("category", CATEGORY_COLUMNS, categories, plan::category);
+        insertRows("subcategory", SUBCATEGORY_COLUMNS, plan.subcategories, plan::subcategory);
+        insertRows("product", PRODUCT_COLUMNS, products, plan::product);
+        insertRows("user", USER_COLUMNS, users, plan::user);
+        restartIdentities();
+    }
+
+    // Each batch is generated and inserted by one writer and commits on its own
+    private void insertRows(String table, String columns, long count, RowSource source) {
+        if (count == 0) {
+            return;
+        }
+        int columnCount = columns.split(",").length;
+        String sql = "INSERT INTO " + table + " (" + columns + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columnCount, "?")) + ")";
+        long batches = (count + batchSize - 1) / batchSize;
+        AtomicLong done = new AtomicLong();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool((int) Math.min(writers, batches), runnable -> {
+            Thread thread = new Thread(runnable, "catalog-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long batch = 0; batch < batches; batch++) {
+                long first = batch * batchSize + 1;
+                int size = (int) Math.min(batchSize, count - first + 1);
+                futures.add(executor.submit(() -> {
+                    jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                        private final Object[] row = new Object[columnCount];
+
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            source.fill(first + i, row);
+                            for (int c = 0; c < columnCount; c++) {
+                                if (row[c] == null) {
+                                    ps.setNull(c + 1, Types.NULL);
+                                } else {
+                                    ps.setObject(c + 1, row[c]);
+                                }
+                            }
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return size;
+                        }
+                    });
+                    long total = done.addAndGet(size);
+                    if (count >= 1_000_000 && total % (count / 10) < size) {
+                        log.info("Inserted {} of {} {} rows", total, count, table);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating " + table + " rows", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generating " + table + " rows failed: " + e.getCause().getMessage(),
+                    e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Inserted {} {} rows", count, table);
+    }
+
+    // MySQL moves AUTO_INCREMENT past explicit ids by itself; H2 identities have to be told
+    private void restartIdentities() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"H2".equals(database)) {
+            return;
+        }
+        for (String table : List.of("category", "subcategory", "product", "user")) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId(table) + 1));
+        }
+    }
+
+    private void writeCsv(Plan plan) {
+        Path dir = Paths.get(csvDir);
+        try {
+            Files.createDirectories(dir);
+            writeCsv(dir.resolve("category.csv"), CATEGORY_COLUMNS, categories, plan::category);
+            writeCsv(dir.resolve("subcategory.csv"), SUBCATEGORY_COLUMNS, plan.subcategories, plan::subcategory);
+            writeCsv(dir.resolve("product.csv"), PRODUCT_COLUMNS, products, plan::product);
+            writeCsv(dir.resolve("user.csv"), USER_COLUMNS, users, plan::user);
+
+            StringBuilder script = new StringBuilder("-- Load with: mysql --local-infile=1 <database> < load.sql\n");
+            for (String table : List.of("category", "subcategory", "product", "user")) {
+                String columns = switch (table) {
+                    case "category" -> CATEGORY_COLUMNS;
+                    case "subcategory" -> SUBCATEGORY_COLUMNS;
+                    case "product" -> PRODUCT_COLUMNS;
+                    default -> USER_COLUMNS;
+                };
+                script.append("LOAD DATA LOCAL INFILE '").append(dir.resolve(table + ".csv").toAbsolutePath())
+                        .append("' INTO TABLE `").append(table).append("` CHARACTER SET utf8mb4")
+                        .append(" FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"'")
+                        .append(" LINES TERMINATED BY '\\n' IGNORE 1 LINES (").append(columns).append(");\n");
+            }
+            Files.writeString(dir.resolve("load.sql"), script);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing catalog CSV files to " + dir, e);
+        }
+        log.info("Catalog CSV files and load.sql written to {}", dir.toAbsolutePath());
+    }
+
+    private void writeCsv(Path file, String columns, long count, RowSource source) throws IOException {
+        Object[] row = new Object[columns.split(",").length];
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(columns.replace(" ", ""));
+            writer.write('\n');
+            for (long ordinal = 1; ordinal <= count; ordinal++) {
+                source.fill(ordinal, row);
+                for (int c = 0; c < row.length; c++) {
+                    if (c > 0) {
+                        writer.write(',');
+                    }
+                    Object value = row[c];
+                    if (value == null) {
+                        writer.write("\\N");
+                    } else if (value instanceof String text) {
+                        writer.write('"');
+                        writer.write(text.replace("\"", "\"\""));
+                        writer.write('"');
+                    } else {
+                        writer.write(value.toString());
+                    }
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        void fill(long ordinal, Object[] row);
+    }
+
+    /**
+     * Turns ordinals into rows. Ids continue after the existing ones; products
+     * pick their brand and subcategory by Zipf rank from tables built once.
+     */
+    private class Plan {
+
+        final long categoryOffset;
+        final long subcategoryOffset;
+        final long productOffset;
+        final long userOffset;
+        final int subcategories;
+        final double[] brandWeights;
+        final double[] subcategoryWeights;
+        final int[] subcategoryOrder;
+
+        Plan(long categoryOffset, long subcategoryOffset, long productOffset, long userOffset) {
+            this.categoryOffset = categoryOffset;
+            this.subcategoryOffset = subcategoryOffset;
+            this.productOffset = productOffset;
+            this.userOffset = userOffset;
+            this.subcategories = categories * subcategoriesPerCategory;
+            this.brandWeights = zipf(brands, BRAND_SKEW);
+            this.subcategoryWeights = zipf(subcategories, SUBCATEGORY_SKEW);
+            // Shuffle which subcategories are popular, so they are not all in the first category
+            this.subcategoryOrder = new int[subcategories];
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int i = 0; i < subcategories; i++) {
+                int j = random.nextInt(i + 1);
+                subcategoryOrder[i] = subcategoryOrder[j];
+                subcategoryOrder[j] = i;
+            }
+        }
+
+        void category(long ordinal, Object[] row) {
+            int index = (int) (ordinal - 1);
+            String name = CATEGORY_NAMES[index % CATEGORY_NAMES.length]
+                    + (index >= CATEGORY_NAMES.length ? " " + (index / CATEGORY_NAMES.length + 1) : "");
+            row[0] = categoryOffset + ordinal;
+            row[1] = name;
+            row[2] = "Everything in " + name.toLowerCase(Locale.ROOT);
+        }
+
+        void subcategory(long ordinal, Object[] row) {
+            long category = (ordinal - 1) / subcategoriesPerCategory + 1;
+            String noun = NOUNS.get((int) ((ordinal - 1) % NOUNS.size()));
+            row[0] = subcategoryOffset + ordinal;
+            row[1] = noun + "s " + category + "." + ((ordinal - 1) % subcategoriesPerCategory + 1);
+            row[2] = noun + "s and accessories";
+            row[3] = categoryOffset + category;
+        }
+
+        void product(long ordinal, Object[] row) {
+            SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + ordinal);
+            String brand = brandName(sample(brandWeights, random.nextDouble()));
+            String adjective = ADJECTIVES.get(random.nextInt(ADJECTIVES.size()));
+            String noun = NOUNS.get(random.nextInt(NOUNS.size()));
+            int subcategory = subcategoryOrder[sample(subcategoryWeights, random.nextDouble())] + 1;
+
+            double price = Math.exp(Math.log(MEDIAN_PRICE) + gaussian(random));
+            price = Math.max(49, Math.min(500_000, Math.round(price / 10) * 10)) - 0.01;
+            Float rating = random.nextInt(10) == 0 ? null
+                    : (float) (Math.round(Math.max(1, Math.min(5, 4.2 + 0.6 * gaussian(random))) * 10) / 10.0);
+            int quantity = stock > 0 ? stock
+                    : random.nextInt(20) == 0 ? 0 : 1 + (int) (-Math.log(1 - random.nextDouble()) * 50);
+
+            row[0] = productOffset + ordinal;
+            row[1] = brand + " " + adjective + " " + noun + " " + (char) ('A' + random.nextInt(26))
+                    + (100 + random.nextInt(900));
+            row[2] = brand;
+            row[3] = adjective + " " + noun.toLowerCase(Locale.ROOT) + " by " + brand + ": "
+                    + FEATURES[random.nextInt(FEATURES.length)] + ", " + FEATURES[random.nextInt(FEATURES.length)] + ".";
+            row[4] = price;
+            row[5] = rating;
+            row[6] = quantity;
+            row[7] = subcategoryOffset + subcategory;
+        }
+
+        void user(long ordinal, Object[] row) {
+            long id = userOffset + ordinal;
+            row[0] = id;
+            row[1] = "user" + id;
+            row[2] = "password" + id;
+            row[3] = "user" + id + "@example.com";
+            row[4] = "ROLE_USER";
+        }
+    }
+
+    // Cumulative weights of ranks 1..n under Zipf(s), normalised to end at 1
+    private static double[] zipf(int n, double s) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1 / Math.pow(k + 1, s);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= total;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, double u) {
+        int index = Arrays.binarySearch(cumulative, u);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
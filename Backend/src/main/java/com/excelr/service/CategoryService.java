@@ -1,5 +1,6 @@
 package com.excelr.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -7,13 +8,17 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.excelr.model.Category;
+import com.excelr.model.ImageStatus;
 import com.excelr.repository.CategoryRepository;
-import com.excelr.util.S3Util;
+import com.excelr.repository.ProductRepository;
+import com.excelr.service.ImageUploadService.PendingUpload;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -21,18 +26,31 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class CategoryService {
     @Autowired
-    private S3Util s3Util;
+    private CategoryRepository categoriesRepo;
 
     @Autowired
-    private CategoryRepository categoriesRepo;
+    private CategoryTreeService categoryTreeService;
+
+    @Autowired
+    private ImageUploadService imageUploadService;
 
-    public ResponseEntity<Map<String, Object>> getCategories() {
-        log.info("Fetching all categories.");
-        List<Category> category = categoriesRepo.findAll();
-        Map<String, Object> response = new HashMap<>();
-        response.put("category", category);
-        log.info("Successfully fetched {} categories.", category.size());
-        return ResponseEntity.ok(response);
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ObjectDeletionService objectDeletionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public ResponseEntity<byte[]> getCategories() {
+        log.info("Fetching category tree.");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(categoryTreeService.getTreeJson());
     }
 
     public ResponseEntity<?> getCategoryById(Long id) {
@@ -52,6 +70,7 @@ public class CategoryService {
     public Category createCategory(Category category) {
         log.info("Creating a new category with name: {}", category.getName());
         Category savedCategory = categoriesRepo.save(category);
+        categoryTreeService.invalidate();
         log.info("Category created successfully with ID: {}", savedCategory.getId());
         return savedCategory;
     }
@@ -62,13 +81,25 @@ public class CategoryService {
         if (categoryopt.isPresent() && image != null) {
             Category category = categoryopt.get();
             log.info("Category found with ID: {}. Updating details.", id);
-            String imageUrl = s3Util.uploadImage(image);
-            log.info("Image uploaded successfully. URL: {}", imageUrl);
+            String previousImageUrl = category.getImage();
+            String previousVariantWidths = category.getImageVariantWidths();
+            PendingUpload upload = imageUploadService.stage(image);
 
-            category.setImage(imageUrl);
+            category.setImage(upload.getUrl());
+            category.setImageVariantWidths(null);
+            category.setImageStatus(ImageStatus.PENDING);
             category.setDescription(updatedCategory.getDescription());
             category.setName(updatedCategory.getName());
-            categoriesRepo.save(category);
+            try {
+                categoriesRepo.save(category);
+            } catch (RuntimeException e) {
+                imageUploadService.cancel(upload);
+                throw e;
+            }
+            imageUploadService.start(upload, (status, variantWidths) -> completeImageUpload(id, status, variantWidths,
+                    upload.getUrl(), previousImageUrl, previousVariantWidths));
+            categoryTreeService.invalidate();
+            productService.refreshProducts(productService.getProductIdsByCategory(id));
 
             Map<String, Object> response = new HashMap<>();
             response.put("category", categoriesRepo.findById(id).orElse(null));
@@ -84,7 +115,15 @@ public class CategoryService {
         log.info("Deleting category with ID: {}", id);
         Optional<Category> cat = categoriesRepo.findById(id);
         if (cat.isPresent()) {
-            categoriesRepo.deleteById(id);
+            List<Long> productIds = productService.getProductIdsByCategory(id);
+            transactionTemplate.executeWithoutResult(tx -> {
+                List<String> images = new ArrayList<>(productRepository.findImagesByCategoryId(id));
+                images.add(cat.get().getImage());
+                objectDeletionService.enqueue(images);
+                categoriesRepo.deleteById(id);
+            });
+            categoryTreeService.invalidate();
+            productService.refreshProducts(productIds);
             log.info("Category deleted successfully with ID: {}", id);
             return ResponseEntity.ok("Deleted successfully");
         } else {
@@ -96,14 +135,51 @@ public class CategoryService {
     public ResponseEntity<?> addCategory(Category category, MultipartFile image) {
         log.info("Adding a new category with name: {}", category.getName());
         Category cat = new Category();
-        String imageUrl = s3Util.uploadImage(image);
-        log.info("Image uploaded successfully for new category. URL: {}", imageUrl);
+        PendingUpload upload = imageUploadService.stage(image);
 
         cat.setName(category.getName());
         cat.setDescription(category.getDescription());
-        cat.setImage(imageUrl);
-        Category savedCategory = categoriesRepo.save(cat);
-        log.info("Category added successfully with ID: {}", savedCategory.getId());
+        cat.setImage(upload.getUrl());
+        cat.setImageStatus(ImageStatus.PENDING);
+        Category savedCategory;
+        try {
+            savedCategory = categoriesRepo.save(cat);
+        } catch (RuntimeException e) {
+            imageUploadService.cancel(upload);
+            throw e;
+        }
+        Long id = savedCategory.getId();
+        imageUploadService.start(upload,
+                (status, variantWidths) -> completeImageUpload(id, status, variantWidths, upload.getUrl(), null, null));
+        categoryTreeService.invalidate();
+        log.info("Category added successfully with ID: {}, image upload pending", id);
         return ResponseEntity.ok("Saved successfully");
     }
-}
\ No newline at end of file
+
+    public ResponseEntity<?> getImageStatus(Long id) {
+        Optional<ImageStatus> status = categoriesRepo.findImageStatusById(id);
+        if (status.isPresent()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("id", id);
+            response.put("imageStatus", status.get());
+            return ResponseEntity.ok(response);
+        } else {
+            log.error("Category not found with ID: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No resource available");
+        }
+    }
+
+    private void completeImageUpload(Long id, ImageStatus status, String variantWidths, String uploadedImageUrl,
+            String previousImageUrl, String previousVariantWidths) {
+        if (status == ImageStatus.READY) {
+            transactionTemplate.executeWithoutResult(tx -> objectDeletionService.enqueue(
+                    categoriesRepo.updateImageStatus(id, uploadedImageUrl, ImageStatus.READY, variantWidths) == 0
+                            ? uploadedImageUrl : previousImageUrl));
+            log.info("Image ready for category ID: {}", id);
+        } else {
+            log.error("Image upload failed for category ID: {}", id);
+            categoriesRepo.revertImage(id, uploadedImageUrl, previousImageUrl, previousVariantWidths, ImageStatus.FAILED);
+        }
+        categoryTreeService.invalidate();
+    }
+}
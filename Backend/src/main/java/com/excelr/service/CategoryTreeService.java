@@ -0,0 +1,105 @@
+package com.excelr.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+
+import com.excelr.model.Category;
+import com.excelr.model.CategoryTreeNode;
+import com.excelr.model.SubcategoryTreeNode;
+import com.excelr.repository.CategoryRepository;
+import com.excelr.repository.ProductRepository;
+import com.excelr.repository.SubcategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class CategoryTreeService {
+
+    private final CategoryRepository categoryRepository;
+    private final SubcategoryRepository subcategoryRepository;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public CategoryTreeService(CategoryRepository categoryRepository, SubcategoryRepository subcategoryRepository,
+            ProductRepository productRepository, ObjectMapper objectMapper) {
+        this.categoryRepository = categoryRepository;
+        this.subcategoryRepository = subcategoryRepository;
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public byte[] getTreeJson() {
+        return current().json();
+    }
+
+    public List<CategoryTreeNode> getTree() {
+        return current().nodes();
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.version() == version.get()) {
+            return current;
+        }
+        return rebuild();
+    }
+
+    private synchronized Snapshot rebuild() {
+        long buildVersion = version.get();
+        Snapshot current = snapshot;
+        if (current != null && current.version() == buildVersion) {
+            return current;
+        }
+
+        log.info("Rebuilding category tree snapshot.");
+        Map<Long, Long> productCounts = new HashMap<>();
+        for (Object[] row : productRepository.countGroupedBySubcategory()) {
+            productCounts.put((Long) row[0], (Long) row[1]);
+        }
+        Map<Long, List<SubcategoryTreeNode>> subcategoriesByCategory = new HashMap<>();
+        for (Object[] row : subcategoryRepository.findTreeRows()) {
+            Long subcategoryId = (Long) row[0];
+            subcategoriesByCategory.computeIfAbsent((Long) row[3], id -> new ArrayList<>())
+                    .add(new SubcategoryTreeNode(subcategoryId, (String) row[1], (String) row[2],
+                            productCounts.getOrDefault(subcategoryId, 0L)));
+        }
+
+        List<CategoryTreeNode> nodes = new ArrayList<>();
+        for (Category category : categoryRepository.findAll()) {
+            List<SubcategoryTreeNode> children = subcategoriesByCategory.getOrDefault(category.getId(), List.of());
+            long productCount = children.stream().mapToLong(SubcategoryTreeNode::getProductCount).sum();
+            nodes.add(new CategoryTreeNode(category.getId(), category.getName(), category.getDescription(),
+                    category.getImage(), category.getImageVariants(), productCount, List.copyOf(children)));
+        }
+        nodes = Collections.unmodifiableList(nodes);
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(Map.of("category", nodes));
+            Snapshot rebuilt = new Snapshot(buildVersion, nodes, json);
+            snapshot = rebuilt;
+            log.info("Category tree snapshot rebuilt with {} categories ({} bytes).", nodes.size(), json.length);
+            return rebuilt;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize category tree: " + e.getMessage());
+        }
+    }
+
+    private record Snapshot(long version, List<CategoryTreeNode> nodes, byte[] json) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.excelr.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.excelr.model.ExportFormat;
+import com.excelr.model.ExportJob;
+import com.excelr.model.ExportJobStatus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class ExportJobService {
+
+    private final ProductService productService;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<ExportFormat, ExportJob> activeJobs = new ConcurrentHashMap<>();
+
+    @Value("${export.spool.dir:${java.io.tmpdir}/ecommerce-exports}")
+    private String spoolDir;
+
+    @Value("${export.workers:2}")
+    private int workers;
+
+    @Value("${export.queue.capacity:8}")
+    private int queueCapacity;
+
+    @Value("${export.ttl.minutes:60}")
+    private long ttlMinutes;
+
+    private Path spoolPath;
+    private ThreadPoolExecutor executor;
+
+    public ExportJobService(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        spoolPath = Files.createDirectories(Paths.get(spoolDir));
+        try (Stream<Path> leftovers = Files.list(spoolPath)) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Export spool directory: {}", spoolPath);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public ExportJob submit(ExportFormat format) {
+        return activeJobs.compute(format, (key, existing) -> {
+            if (existing != null && (existing.getStatus() == ExportJobStatus.QUEUED
+                    || existing.getStatus() == ExportJobStatus.RUNNING)) {
+                log.info("Reusing in-flight {} export job {}", format, existing.getId());
+                return existing;
+            }
+            ExportJob created = new ExportJob(UUID.randomUUID().toString(), format, Instant.now());
+            try {
+                executor.execute(() -> run(created));
+            } catch (RejectedExecutionException e) {
+                log.warn("Export queue is full, rejecting {} export", format);
+                throw e;
+            }
+            jobs.put(created.getId(), created);
+            log.info("Queued {} export job {}", format, created.getId());
+            return created;
+        });
+    }
+
+    public Optional<ExportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    @Scheduled(fixedDelayString = "${export.eviction.interval.ms:60000}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        jobs.values().removeIf(job -> {
+            if (job.getExpiresAt() == null || job.getExpiresAt().isAfter(now)) {
+                return false;
+            }
+            if (job.getFile() != null) {
+                deleteQuietly(job.getFile());
+            }
+            log.info("Evicted expired export job {}", job.getId());
+            return true;
+        });
+    }
+
+    private void run(ExportJob job) {
+        job.setStatus(ExportJobStatus.RUNNING);
+        job.setStartedAt(Instant.now());
+        job.setTotalRows(productService.countProducts());
+        Path partial = spoolPath.resolve(job.getId() + ".part");
+        Path target = spoolPath.resolve(job.getFileName());
+        try (OutputStream outputStream = Files.newOutputStream(partial)) {
+            long rows = productService.exportProducts(job.getFormat(), outputStream, job::setRowsWritten);
+            job.setRowsWritten(rows);
+        } catch (Exception e) {
+            log.error("Export job {} failed: {}", job.getId(), e.getMessage());
+            deleteQuietly(partial);
+            job.setError(e.getMessage());
+            finish(job, ExportJobStatus.FAILED);
+            return;
+        }
+        try {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.setFile(target);
+            job.setSizeBytes(Files.size(target));
+            finish(job, ExportJobStatus.COMPLETED);
+            log.info("Export job {} completed with {} rows", job.getId(), job.getRowsWritten());
+        } catch (IOException e) {
+            log.error("Export job {} could not be finalized: {}", job.getId(), e.getMessage());
+            deleteQuietly(partial);
+            job.setError(e.getMessage());
+            finish(job, ExportJobStatus.FAILED);
+        }
+    }
+
+    private void finish(ExportJob job, ExportJobStatus status) {
+        Instant now = Instant.now();
+        job.setFinishedAt(now);
+        job.setExpiresAt(now.plus(Duration.ofMinutes(ttlMinutes)));
+        job.setStatus(status);
+        activeJobs.remove(job.getFormat(), job);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled export {}: {}", path, e.getMessage());
+        }
+    }
+}
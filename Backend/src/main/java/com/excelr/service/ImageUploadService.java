@@ -0,0 +1,190 @@
+package com.excelr.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.excelr.model.ImageStatus;
+import com.excelr.util.S3Util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Uploads images to S3 off the request thread. Callers {@link #stage} the
+ * multipart file (validated and spooled to local disk so it outlives the
+ * request), persist their entity with the returned URL and a PENDING status,
+ * then {@link #start} the upload. The worker stores the original and then
+ * generates the resized variants from the same spooled copy. At most
+ * {@code workers + queue capacity} uploads may be in flight; beyond that
+ * {@code stage} rejects the request.
+ */
+@Slf4j
+@Service
+public class ImageUploadService {
+
+    private final S3Util s3Util;
+
+    @Value("${image.upload.spool.dir:${java.io.tmpdir}/ecommerce-uploads}")
+    private String spoolDir;
+
+    @Value("${image.upload.workers:4}")
+    private int workers;
+
+    @Value("${image.upload.queue.capacity:100}")
+    private int queueCapacity;
+
+    @Value("${image.upload.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${image.upload.backoff.ms:500}")
+    private long backoffMillis;
+
+    private Path spoolPath;
+    private Semaphore permits;
+    private ThreadPoolExecutor executor;
+
+    public ImageUploadService(S3Util s3Util) {
+        this.s3Util = s3Util;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        spoolPath = Files.createDirectories(Paths.get(spoolDir));
+        permits = new Semaphore(workers + queueCapacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-upload-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Image uploads still running at shutdown: {}", executor.getActiveCount());
+        }
+    }
+
+    public PendingUpload stage(MultipartFile file) {
+        s3Util.validateFile(file);
+        if (!permits.tryAcquire()) {
+            log.warn("Image upload queue is full, rejecting upload of {}", file.getOriginalFilename());
+            throw new RejectedExecutionException("Image upload queue is full");
+        }
+        try {
+            String key = s3Util.newObjectKey(file);
+            Path spooled = Files.createTempFile(spoolPath, "upload-", ".part");
+            file.transferTo(spooled);
+            return new PendingUpload(key, s3Util.urlFor(key), s3Util.contentTypeOf(file), spooled);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw new RuntimeException("Error staging image upload: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the upload in the background. {@code onFinished} receives the final
+     * status and the comma-separated widths of the generated variants, which is
+     * null when the upload failed or no variants could be produced.
+     */
+    public void start(PendingUpload upload, BiConsumer<ImageStatus, String> onFinished) {
+        executor.execute(() -> {
+            ImageStatus status = ImageStatus.FAILED;
+            String variantWidths = null;
+            try {
+                status = upload(upload);
+                if (status == ImageStatus.READY) {
+                    variantWidths = generateVariants(upload);
+                }
+            } finally {
+                deleteQuietly(upload.getFile());
+                permits.release();
+            }
+            try {
+                onFinished.accept(status, variantWidths);
+            } catch (RuntimeException e) {
+                log.error("Failed to record image status {} for {}: {}", status, upload.getKey(), e.getMessage());
+            }
+        });
+    }
+
+    public void cancel(PendingUpload upload) {
+        deleteQuietly(upload.getFile());
+        permits.release();
+    }
+
+    public int getInFlight() {
+        return workers + queueCapacity - permits.availablePermits();
+    }
+
+    private ImageStatus upload(PendingUpload upload) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                s3Util.putObject(upload.getKey(), upload.getFile(), upload.getContentType());
+                log.info("Uploaded image {} on attempt {}", upload.getKey(), attempt);
+                return ImageStatus.READY;
+            } catch (RuntimeException e) {
+                log.warn("Upload attempt {} of {} failed for {}: {}", attempt, maxAttempts, upload.getKey(), e.getMessage());
+                if (attempt < maxAttempts) {
+                    try {
+                        Thread.sleep(backoffMillis << (attempt - 1));
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        }
+        log.error("Giving up on image upload {}", upload.getKey());
+        return ImageStatus.FAILED;
+    }
+
+    private String generateVariants(PendingUpload upload) {
+        try {
+            String widths = s3Util.generateVariants(upload.getKey(), upload.getFile(), upload.getContentType());
+            log.info("Generated variants [{}] for image {}", widths, upload.getKey());
+            return widths.isEmpty() ? null : widths;
+        } catch (RuntimeException e) {
+            // The original is already stored, so clients fall back to it
+            log.warn("Failed to generate variants for {}: {}", upload.getKey(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled upload {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class PendingUpload {
+        private final String key;
+        private final String url;
+        private final String contentType;
+        private final Path file;
+    }
+}
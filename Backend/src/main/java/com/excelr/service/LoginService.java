@@ -8,10 +8,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import com.excelr.model.AuthenticatedUser;
 import com.excelr.model.User;
 import com.excelr.model.Userdto;
 import com.excelr.repository.UserRepository;
 import com.excelr.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.Cache;
 
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +28,9 @@ public class LoginService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private Cache<Integer, AuthenticatedUser> principalCache;
+
     public User saveUser(User user) {
         log.info("Saving user with username: {}", user.getUsername());
         repository.findByUsername(user.getUsername()).ifPresent(existingUser -> {
@@ -51,7 +56,7 @@ public class LoginService {
         Optional<User> user = repository.findByUsername(username);
         if (user.isPresent() && user.get().getPassword().equals(password)) {
             log.info("Login successful for username: {}", username);
-            String token = jwtUtil.generateToken(username);
+            String token = jwtUtil.generateToken(user.get());
 
             Map<String, String> response = new HashMap<>();
             response.put("login", "success");
@@ -88,6 +93,7 @@ public class LoginService {
             existingUser.setPassword(user.getPassword());
             existingUser.setPhoneNumber(user.getPhoneNumber());
             repository.save(existingUser);
+            principalCache.invalidate(existingUser.getId());
             log.info("User updated successfully: {}", name);
             return ResponseEntity.ok("user updated successfully");
         } else {
@@ -103,6 +109,7 @@ public class LoginService {
             User user = userOpt.get();
             Integer id = user.getId();
             repository.deleteById(id);
+            principalCache.invalidate(id);
             log.info("User deleted successfully with ID: {}", id);
             return ResponseEntity.ok("user deleted successfully");
         } else {
@@ -0,0 +1,127 @@
+package com.excelr.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.excelr.model.ObjectDeletion;
+import com.excelr.repository.ObjectDeletionRepository;
+import com.excelr.util.ObjectStore;
+import com.excelr.util.S3ObjectStore;
+import com.excelr.util.S3Util;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Outbox for storage objects that are no longer referenced. Callers
+ * {@link #enqueue} image URLs in the same transaction that drops the reference,
+ * and a scheduled worker deletes the objects in batches, backing off
+ * exponentially on failure until every key is gone.
+ */
+@Slf4j
+@Service
+public class ObjectDeletionService {
+
+    private final ObjectDeletionRepository deletionRepository;
+    private final ObjectStore objectStore;
+    private final S3Util s3Util;
+
+    @Value("${storage.deletion.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${storage.deletion.backoff.ms:1000}")
+    private long backoffMillis;
+
+    @Value("${storage.deletion.max-backoff.ms:3600000}")
+    private long maxBackoffMillis;
+
+    public ObjectDeletionService(ObjectDeletionRepository deletionRepository, ObjectStore objectStore, S3Util s3Util) {
+        this.deletionRepository = deletionRepository;
+        this.objectStore = objectStore;
+        this.s3Util = s3Util;
+    }
+
+    @Transactional
+    public void enqueue(Collection<String> imageUrls) {
+        Instant now = Instant.now();
+        List<ObjectDeletion> deletions = new ArrayList<>();
+        for (String imageUrl : imageUrls) {
+            for (String key : s3Util.objectKeysOf(imageUrl)) {
+                deletions.add(new ObjectDeletion(key, now));
+            }
+        }
+        if (!deletions.isEmpty()) {
+            deletionRepository.saveAll(deletions);
+        }
+    }
+
+    @Transactional
+    public void enqueue(String imageUrl) {
+        if (imageUrl != null) {
+            enqueue(List.of(imageUrl));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storage.deletion.poll.ms:5000}")
+    public void drain() {
+        int size = Math.min(batchSize, S3ObjectStore.MAX_KEYS_PER_DELETE);
+        List<ObjectDeletion> batch;
+        do {
+            batch = deletionRepository.findDue(Instant.now(), PageRequest.of(0, size));
+            if (!batch.isEmpty() && !deleteBatch(batch)) {
+                break;
+            }
+        } while (batch.size() == size);
+    }
+
+    public long getPending() {
+        return deletionRepository.count();
+    }
+
+    // Returns false when the whole batch failed, so the worker stops hammering the store
+    private boolean deleteBatch(List<ObjectDeletion> batch) {
+        Set<String> failed;
+        try {
+            failed = objectStore.deleteAll(batch.stream().map(ObjectDeletion::getObjectKey).toList());
+        } catch (RuntimeException e) {
+            log.warn("Deleting {} objects failed: {}", batch.size(), e.getMessage());
+            failed = null;
+        }
+
+        Instant now = Instant.now();
+        List<Long> deleted = new ArrayList<>();
+        List<ObjectDeletion> retries = new ArrayList<>();
+        for (ObjectDeletion deletion : batch) {
+            if (failed != null && !failed.contains(deletion.getObjectKey())) {
+                deleted.add(deletion.getId());
+                continue;
+            }
+            deletion.setAttempts(deletion.getAttempts() + 1);
+            deletion.setNextAttemptAt(now.plus(backoff(deletion.getAttempts())));
+            retries.add(deletion);
+        }
+        if (!deleted.isEmpty()) {
+            deletionRepository.deleteAllByIdInBatch(deleted);
+        }
+        if (!retries.isEmpty()) {
+            deletionRepository.saveAll(retries);
+            log.warn("{} object deletions failed and will be retried", retries.size());
+        }
+        log.info("Deleted {} objects from storage", deleted.size());
+        return failed != null;
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = backoffMillis << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, maxBackoffMillis));
+    }
+}
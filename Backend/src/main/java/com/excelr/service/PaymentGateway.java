@@ -0,0 +1,15 @@
+package com.excelr.service;
+
+/**
+ * Creates orders at the payment provider. Implementations are called from
+ * {@link PaymentOrderService}'s gateway pool, which applies the timeout.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Creates an order for {@code amountPaise} and returns the gateway's order id.
+     *
+     * @throws com.excelr.exceptionHandler.PaymentGatewayException if the gateway rejects the request
+     */
+    String createOrder(long amountPaise, String currency, String receipt);
+}
@@ -0,0 +1,247 @@
+package com.excelr.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.excelr.exceptionHandler.CartNotReadyException;
+import com.excelr.exceptionHandler.PaymentGatewayException;
+import com.excelr.model.CartView;
+import com.excelr.model.PaymentOrder;
+import com.excelr.model.PaymentOrderStatus;
+import com.excelr.model.ReservationLine;
+import com.excelr.model.ReservationStatus;
+import com.excelr.model.StockReservation;
+import com.excelr.repository.PaymentOrderRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Turns a user's cart into a gateway order exactly once per idempotency key.
+ * The key is hashed with the user id into the order's receipt, which is
+ * unique in {@code payment_order}; retries find the stored order (in memory
+ * first, then by receipt) and return it without reserving stock or calling
+ * the gateway again. Concurrent retries on one instance share a single
+ * in-flight creation.
+ */
+@Slf4j
+@Service
+public class PaymentOrderService {
+
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final PaymentGateway gateway;
+    private final PaymentOrderRepository orderRepository;
+    private final CartService cartService;
+    private final StockReservationService stockReservationService;
+
+    @Value("${payment.gateway.timeout.ms:5000}")
+    private long timeoutMillis;
+
+    @Value("${payment.gateway.workers:8}")
+    private int workers;
+
+    @Value("${payment.idempotency.ttl.minutes:60}")
+    private long idempotencyTtlMinutes;
+
+    @Value("${payment.idempotency.maximum-size:100000}")
+    private long idempotencyCacheSize;
+
+    private ThreadPoolExecutor executor;
+    private AsyncCache<String, PaymentOrder> orders;
+
+    public PaymentOrderService(PaymentGateway gateway, PaymentOrderRepository orderRepository,
+            CartService cartService, StockReservationService stockReservationService) {
+        this.gateway = gateway;
+        this.orderRepository = orderRepository;
+        this.cartService = cartService;
+        this.stockReservationService = stockReservationService;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payment-gateway-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        orders = Caffeine.newBuilder()
+                .maximumSize(idempotencyCacheSize)
+                .expireAfterWrite(Duration.ofMinutes(idempotencyTtlMinutes))
+                .buildAsync();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the order for this user and idempotency key, creating it from the
+     * current cart on first use. Without a key every call creates a new order.
+     */
+    public PaymentOrder createOrder(Integer userId, String idempotencyKey, String currency) {
+        String receipt = receiptFor(userId, idempotencyKey);
+        CompletableFuture<PaymentOrder> created = new CompletableFuture<>();
+        CompletableFuture<PaymentOrder> existing = orders.asMap().putIfAbsent(receipt, created);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            PaymentOrder order = open(userId, receipt, currency);
+            created.complete(order);
+            return order;
+        } catch (RuntimeException e) {
+            // A failed future drops out of the cache, so the next retry starts over
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void markPaid(String gatewayOrderId) {
+        markPaid(List.of(gatewayOrderId));
+    }
+
+    public void markPaid(Collection<String> gatewayOrderIds) {
+        if (gatewayOrderIds.isEmpty()) {
+            return;
+        }
+        orderRepository.updateStatuses(gatewayOrderIds, PaymentOrderStatus.PAID);
+        orders.synchronous().invalidateAll(orderRepository.findReceipts(gatewayOrderIds));
+    }
+
+    private PaymentOrder open(Integer userId, String receipt, String currency) {
+        Optional<PaymentOrder> stored = orderRepository.findByReceipt(receipt);
+        if (stored.isPresent() && stored.get().getStatus() != PaymentOrderStatus.FAILED) {
+            PaymentOrder order = stored.get();
+            boolean stale = order.getStatus() == PaymentOrderStatus.PENDING
+                    && order.getCreatedAt().isBefore(Instant.now().minusMillis(2 * timeoutMillis));
+            if (order.getStatus() == PaymentOrderStatus.PENDING && !stale) {
+                throw new PaymentGatewayException("Order " + receipt + " is still being created, retry shortly");
+            }
+            if (!stale) {
+                log.info("Returning existing order {} for receipt {}", order.getGatewayOrderId(), receipt);
+                return order;
+            }
+            // The instance that started this order died mid-call; hand its hold back before starting over
+            stockReservationService.release(order.getReservationId(), ReservationStatus.RELEASED);
+        }
+
+        CartView cart = cartService.view(userId);
+        if (cart.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Cart is empty");
+        }
+        if (!cart.isCheckoutReady()) {
+            throw new CartNotReadyException(cart);
+        }
+        StockReservation reservation = stockReservationService.reserve(cart.getItems().stream()
+                .map(item -> new ReservationLine(item.getProductId(), item.getQuantity()))
+                .toList());
+
+        PaymentOrder order = stored.orElseGet(PaymentOrder::new);
+        order.setReceipt(receipt);
+        order.setUserId(userId);
+        order.setAmountPaise(Math.round(cart.getTotal() * 100));
+        order.setCurrency(currency);
+        order.setStatus(PaymentOrderStatus.PENDING);
+        order.setGatewayOrderId(null);
+        order.setReservationId(reservation.getId());
+        order.setCreatedAt(Instant.now());
+        try {
+            order = orderRepository.saveAndFlush(order);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance inserted the same receipt first
+            stockReservationService.release(reservation.getId(), ReservationStatus.RELEASED);
+            throw new PaymentGatewayException("Order " + receipt + " is still being created, retry shortly");
+        }
+
+        String gatewayOrderId;
+        try {
+            gatewayOrderId = callGateway(order);
+        } catch (RuntimeException e) {
+            stockReservationService.release(reservation.getId(), ReservationStatus.RELEASED);
+            order.setStatus(PaymentOrderStatus.FAILED);
+            orderRepository.save(order);
+            throw e;
+        }
+        order.setGatewayOrderId(gatewayOrderId);
+        order.setStatus(PaymentOrderStatus.CREATED);
+        order = orderRepository.save(order);
+        stockReservationService.attachOrder(reservation.getId(), gatewayOrderId);
+        log.info("Created order {} for receipt {} ({} paise)", gatewayOrderId, receipt, order.getAmountPaise());
+        return order;
+    }
+
+    private String callGateway(PaymentOrder order) {
+        long amountPaise = order.getAmountPaise();
+        String currency = order.getCurrency();
+        String receipt = order.getReceipt();
+        Future<String> call = executor.submit(() -> gateway.createOrder(amountPaise, currency, receipt));
+        try {
+            return call.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            log.error("Payment gateway timed out after {} ms for receipt {}", timeoutMillis, receipt);
+            throw new PaymentGatewayException("Payment gateway timed out", e);
+        } catch (ExecutionException e) {
+            log.error("Payment gateway failed for receipt {}: {}", receipt, e.getCause().getMessage());
+            throw e.getCause() instanceof PaymentGatewayException cause ? cause
+                    : new PaymentGatewayException("Payment gateway failed", e.getCause());
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("Interrupted while waiting for the payment gateway", e);
+        }
+    }
+
+    // Receipts are capped at 40 characters by the gateway, so the user and key are hashed into one
+    static String receiptFor(Integer userId, String idempotencyKey) {
+        if (userId == null) {
+            throw new IllegalArgumentException("An order needs a signed-in user");
+        }
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return "rcpt_" + UUID.randomUUID().toString().replace("-", "");
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key is longer than " + MAX_KEY_LENGTH + " characters");
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((userId + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+            return "rcpt_" + HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.excelr.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.excelr.model.PaymentEvent;
+import com.excelr.model.PaymentEventStatus;
+import com.excelr.repository.PaymentEventRepository;
+import com.excelr.repository.StockReservationRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server-to-server payment notifications. A webhook is only verified and
+ * appended to {@code payment_event} on the request thread, so a burst costs
+ * one plain insert per delivery; the unique event id turns redeliveries into
+ * no-ops. A scheduled consumer claims due events and applies them in batches:
+ * captured payments confirm their stock holds and mark orders paid with bulk
+ * updates, failed payments release their holds. When a batch fails its events
+ * are applied one by one, so only the events that keep failing back off and,
+ * after {@code max-attempts}, are parked as FAILED for manual follow-up.
+ */
+@Slf4j
+@Service
+public class PaymentWebhookService {
+
+    private static final String PAYMENT_CAPTURED = "payment.captured";
+    private static final String ORDER_PAID = "order.paid";
+    private static final String PAYMENT_FAILED = "payment.failed";
+    private static final String INSERT_EVENT = "INSERT INTO payment_event "
+            + "(event_id, payload, status, attempts, next_attempt_at, received_at) VALUES (?, ?, 'PENDING', 0, ?, ?)";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final RazorpayService razorpayService;
+    private final PaymentEventRepository eventRepository;
+    private final StockReservationRepository reservationRepository;
+    private final StockReservationService stockReservationService;
+    private final PaymentOrderService paymentOrderService;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Value("${payment.webhook.max-concurrent:16}")
+    private int maxConcurrent;
+
+    @Value("${payment.webhook.batch-size:500}")
+    private int batchSize;
+
+    @Value("${payment.webhook.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${payment.webhook.backoff.ms:1000}")
+    private long backoffMillis;
+
+    @Value("${payment.webhook.max-backoff.ms:300000}")
+    private long maxBackoffMillis;
+
+    @Value("${payment.webhook.claim.ttl.ms:60000}")
+    private long claimTtlMillis;
+
+    @Value("${payment.webhook.retention.days:7}")
+    private long retentionDays;
+
+    private Semaphore permits;
+
+    public PaymentWebhookService(RazorpayService razorpayService, PaymentEventRepository eventRepository,
+            StockReservationRepository reservationRepository, StockReservationService stockReservationService,
+            PaymentOrderService paymentOrderService, ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
+        this.razorpayService = razorpayService;
+        this.eventRepository = eventRepository;
+        this.reservationRepository = reservationRepository;
+        this.stockReservationService = stockReservationService;
+        this.paymentOrderService = paymentOrderService;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Verifies and stores one delivery. Returns false for a bad signature.
+     *
+     * @throws RejectedExecutionException when too many deliveries are in flight,
+     *         so the gateway retries later instead of tying up request threads
+     */
+    public boolean receive(String eventId, String signature, byte[] body) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many webhook deliveries in flight");
+        }
+        try {
+            if (!razorpayService.verifyWebhook(body, signature)) {
+                log.warn("Rejected webhook {} with an invalid signature", eventId);
+                return false;
+            }
+            String id = eventId != null && !eventId.isBlank() ? eventId : digest(body);
+            Timestamp now = Timestamp.from(Instant.now());
+            try {
+                jdbcTemplate.update(INSERT_EVENT, id, new String(body, StandardCharsets.UTF_8), now, now);
+            } catch (DuplicateKeyException e) {
+                log.debug("Ignoring redelivered webhook {}", id);
+            }
+            return true;
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.webhook.poll.ms:500}")
+    public void drain() {
+        List<Long> due;
+        do {
+            Instant now = Instant.now();
+            due = eventRepository.findDueIds(now, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                break;
+            }
+            String token = UUID.randomUUID().toString();
+            if (eventRepository.claim(due, token, now, now.plusMillis(claimTtlMillis)) == 0) {
+                continue;
+            }
+            if (!apply(eventRepository.findClaimed(token))) {
+                break;
+            }
+        } while (due.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.webhook.purge.ms:3600000}")
+    public void purge() {
+        int purged = eventRepository.deleteProcessedBefore(Instant.now().minus(Duration.ofDays(retentionDays)));
+        if (purged > 0) {
+            log.info("Purged {} processed payment events", purged);
+        }
+    }
+
+    // Returns false when nothing in the batch could be applied, so the consumer waits for the next poll
+    private boolean apply(List<PaymentEvent> batch) {
+        Map<PaymentEvent, OrderUpdate> updates = new LinkedHashMap<>();
+        for (PaymentEvent event : batch) {
+            try {
+                updates.put(event, parse(event));
+            } catch (Exception e) {
+                log.warn("Skipping unreadable payment event {}: {}", event.getEventId(), e.getMessage());
+                updates.put(event, null);
+            }
+        }
+        Set<String> paid = new LinkedHashSet<>();
+        Set<String> failed = new LinkedHashSet<>();
+        updates.values().stream().filter(Objects::nonNull)
+                .forEach(update -> (update.paid() ? paid : failed).add(update.orderId()));
+        // Customers may retry a failed payment on the same order; any success in the batch wins
+        failed.removeAll(paid);
+
+        try {
+            applyOrders(paid, failed);
+            eventRepository.markProcessed(batch.stream().map(PaymentEvent::getId).toList(), Instant.now());
+            log.info("Applied {} payment events: {} paid, {} failed orders", batch.size(), paid.size(), failed.size());
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Applying {} payment events failed, retrying them one by one: {}", batch.size(), e.getMessage());
+        }
+
+        // Every update is idempotent, so whatever the failed batch already applied is safe to apply again
+        int applied = 0;
+        for (Map.Entry<PaymentEvent, OrderUpdate> entry : updates.entrySet()) {
+            OrderUpdate update = entry.getValue();
+            try {
+                if (update != null) {
+                    applyOrders(update.paid() ? Set.of(update.orderId()) : Set.of(),
+                            update.paid() ? Set.of() : Set.of(update.orderId()));
+                }
+                eventRepository.markProcessed(List.of(entry.getKey().getId()), Instant.now());
+                applied++;
+            } catch (RuntimeException e) {
+                retryLater(entry.getKey(), e);
+            }
+        }
+        return applied > 0;
+    }
+
+    private OrderUpdate parse(PaymentEvent event) throws IOException {
+        JsonNode root = objectMapper.readTree(event.getPayload());
+        String type = root.path("event").asText();
+        String orderId = ORDER_PAID.equals(type)
+                ? root.path("payload").path("order").path("entity").path("id").asText(null)
+                : root.path("payload").path("payment").path("entity").path("order_id").asText(null);
+        if (orderId == null) {
+            return null;
+        }
+        if (PAYMENT_CAPTURED.equals(type) || ORDER_PAID.equals(type)) {
+            return new OrderUpdate(orderId, true);
+        }
+        return PAYMENT_FAILED.equals(type) ? new OrderUpdate(orderId, false) : null;
+    }
+
+    private void applyOrders(Set<String> paid, Set<String> failed) {
+        if (!paid.isEmpty()) {
+            confirm(paid);
+            paymentOrderService.markPaid(paid);
+        }
+        failed.forEach(stockReservationService::release);
+    }
+
+    private void retryLater(PaymentEvent event, RuntimeException cause) {
+        int attempts = event.getAttempts() + 1;
+        String error = String.valueOf(cause.getMessage());
+        error = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        boolean exhausted = attempts >= maxAttempts;
+        try {
+            eventRepository.markFailedAttempt(event.getId(),
+                    exhausted ? PaymentEventStatus.FAILED : PaymentEventStatus.PENDING, attempts,
+                    Instant.now().plus(backoff(attempts)), error);
+        } catch (RuntimeException e) {
+            // The claim lease runs out and the event is picked up again
+            log.warn("Could not record the failure of payment event {}: {}", event.getEventId(), e.getMessage());
+            return;
+        }
+        if (exhausted) {
+            log.error("Payment event {} failed {} times and was parked as FAILED: {}", event.getEventId(), attempts,
+                    error);
+        } else {
+            log.warn("Payment event {} failed (attempt {}), retrying later: {}", event.getEventId(), attempts, error);
+        }
+        meterRegistry.counter("payment.webhook.failures", "outcome", exhausted ? "dead_letter" : "retry").increment();
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = backoffMillis << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, maxBackoffMillis));
+    }
+
+    private void confirm(Set<String> orderIds) {
+        if (reservationRepository.confirmHeld(orderIds) == orderIds.size()) {
+            return;
+        }
+        // Holds that lapsed before the payment landed are taken again one order at a time
+        List<String> unconfirmed = new ArrayList<>(orderIds);
+        unconfirmed.removeAll(reservationRepository.findConfirmedOrderIds(orderIds));
+        for (String orderId : unconfirmed) {
+            if (!stockReservationService.confirm(orderId)) {
+                log.error("Order {} was paid but its items are sold out; it needs a refund", orderId);
+            }
+        }
+    }
+
+    private static String digest(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body), 0, 32);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record OrderUpdate(String orderId, boolean paid) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.excelr.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.excelr.model.ProductBulkUpdateResult;
+import com.excelr.model.ProductStockUpdate;
+import com.excelr.model.ProductUpdateOutcome;
+import com.excelr.model.ProductUpdateStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies price and quantity changes for many products at once. Updates are
+ * read as a JSON array or NDJSON stream, applied in chunks with one batched
+ * UPDATE statement per chunk and transaction, and answered with one outcome
+ * per update in request order.
+ */
+@Slf4j
+@Service
+public class ProductBulkUpdateService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE product SET price = COALESCE(?, price), quantity = COALESCE(?, quantity) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${bulk-update.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${bulk-update.max-items:100000}")
+    private int maxItems;
+
+    public ProductBulkUpdateService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            ProductService productService, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+    }
+
+    public ProductBulkUpdateResult applyUpdates(InputStream body) {
+        long started = System.currentTimeMillis();
+        // Outcomes are kept in request order; slots for queued updates are filled when their chunk is written
+        List<ProductUpdateOutcome> outcomes = new ArrayList<>();
+        List<Integer> chunkSlots = new ArrayList<>(chunkSize);
+        List<ProductStockUpdate> chunk = new ArrayList<>(chunkSize);
+        try (MappingIterator<ProductStockUpdate> updates =
+                objectMapper.readerFor(ProductStockUpdate.class).readValues(body)) {
+            while (updates.hasNextValue()) {
+                if (outcomes.size() >= maxItems) {
+                    outcomes.add(new ProductUpdateOutcome(null, ProductUpdateStatus.INVALID,
+                            "At most " + maxItems + " updates are accepted per request; the rest were ignored"));
+                    break;
+                }
+                ProductStockUpdate update = updates.nextValue();
+                String problem = validate(update);
+                if (problem != null) {
+                    outcomes.add(new ProductUpdateOutcome(update != null ? update.getId() : null,
+                            ProductUpdateStatus.INVALID, problem));
+                    continue;
+                }
+                chunkSlots.add(outcomes.size());
+                outcomes.add(null);
+                chunk.add(update);
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, chunkSlots, outcomes);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            outcomes.add(new ProductUpdateOutcome(null, ProductUpdateStatus.INVALID,
+                    "Malformed update, the rest were ignored: " + e.getOriginalMessage()));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading updates: " + e.getMessage());
+        }
+        flush(chunk, chunkSlots, outcomes);
+
+        int[] counts = new int[ProductUpdateStatus.values().length];
+        outcomes.forEach(outcome -> counts[outcome.getStatus().ordinal()]++);
+        ProductBulkUpdateResult result = new ProductBulkUpdateResult(outcomes.size(),
+                counts[ProductUpdateStatus.UPDATED.ordinal()], counts[ProductUpdateStatus.NOT_FOUND.ordinal()],
+                counts[ProductUpdateStatus.INVALID.ordinal()], counts[ProductUpdateStatus.FAILED.ordinal()],
+                System.currentTimeMillis() - started, outcomes);
+        log.info("Bulk update of {} products: {} updated, {} not found, {} invalid, {} failed in {} ms",
+                result.getReceived(), result.getUpdated(), result.getNotFound(), result.getInvalid(),
+                result.getFailed(), result.getDurationMillis());
+        return result;
+    }
+
+    private void flush(List<ProductStockUpdate> chunk, List<Integer> slots, List<ProductUpdateOutcome> outcomes) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Long> ids = chunk.stream().map(ProductStockUpdate::getId).distinct().toList();
+        try {
+            Set<Long> existing = transactionTemplate.execute(tx -> {
+                Set<Long> found = new HashSet<>(namedJdbcTemplate.queryForList(
+                        "SELECT id FROM product WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids), Long.class));
+                List<ProductStockUpdate> writes = chunk.stream().filter(u -> found.contains(u.getId())).toList();
+                jdbcTemplate.batchUpdate(UPDATE_SQL, writes, writes.size(), (ps, update) -> {
+                    if (update.getPrice() != null) {
+                        ps.setDouble(1, update.getPrice());
+                    } else {
+                        ps.setNull(1, Types.DOUBLE);
+                    }
+                    if (update.getQuantity() != null) {
+                        ps.setInt(2, update.getQuantity());
+                    } else {
+                        ps.setNull(2, Types.INTEGER);
+                    }
+                    ps.setLong(3, update.getId());
+                });
+                return found;
+            });
+            Set<Long> found = existing != null ? existing : Collections.emptySet();
+            for (int i = 0; i < chunk.size(); i++) {
+                Long id = chunk.get(i).getId();
+                outcomes.set(slots.get(i), found.contains(id)
+                        ? new ProductUpdateOutcome(id, ProductUpdateStatus.UPDATED, null)
+                        : new ProductUpdateOutcome(id, ProductUpdateStatus.NOT_FOUND, "Product not found"));
+            }
+            productService.refreshProducts(new ArrayList<>(found));
+        } catch (DataAccessException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.error("Bulk update chunk of {} products failed: {}", chunk.size(), cause);
+            for (int i = 0; i < chunk.size(); i++) {
+                outcomes.set(slots.get(i), new ProductUpdateOutcome(chunk.get(i).getId(), ProductUpdateStatus.FAILED, cause));
+            }
+        }
+        chunk.clear();
+        slots.clear();
+    }
+
+    private static String validate(ProductStockUpdate update) {
+        if (update == null || update.getId() == null) {
+            return "id is required";
+        }
+        if (update.getPrice() == null && update.getQuantity() == null) {
+            return "price or quantity is required";
+        }
+        if (update.getPrice() != null && (update.getPrice() < 0 || !Double.isFinite(update.getPrice()))) {
+            return "price must be a non-negative number";
+        }
+        if (update.getQuantity() != null && update.getQuantity() < 0) {
+            return "quantity cannot be negative";
+        }
+        return null;
+    }
+}
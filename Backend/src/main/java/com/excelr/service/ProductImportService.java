@@ -0,0 +1,436 @@
+package com.excelr.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import com.excelr.model.ProductImportError;
+import com.excelr.model.ProductImportResult;
+import com.excelr.model.Productdto;
+import com.excelr.repository.SubcategoryRepository;
+import com.excelr.util.CsvRowReader;
+import com.excelr.util.ProductSearchIndex;
+import com.excelr.util.TempFileSharedStrings;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk product import, the counterpart of the export: reads the same columns
+ * from CSV or XLSX (first sheet) one row at a time, resolves subcategories from
+ * a map loaded up front and inserts valid rows with batched JDBC statements,
+ * committing each batch on its own. Invalid rows are skipped and reported.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO product "
+            + "(name, price, description, brand, rating, quantity, subcategory_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+
+    private static final String NAME = "name";
+    private static final String PRICE = "price";
+    private static final String DESCRIPTION = "description";
+    private static final String BRAND = "brand";
+    private static final String RATING = "rating";
+    private static final String QUANTITY = "quantity";
+    private static final String SUBCATEGORY = "subcategory";
+    private static final List<String> REQUIRED_COLUMNS = List.of(NAME, PRICE, SUBCATEGORY);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SubcategoryRepository subcategoryRepository;
+    private final ProductSearchIndex searchIndex;
+    private final CategoryTreeService categoryTreeService;
+
+    @Value("${import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            SubcategoryRepository subcategoryRepository, ProductSearchIndex searchIndex,
+            CategoryTreeService categoryTreeService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.subcategoryRepository = subcategoryRepository;
+        this.searchIndex = searchIndex;
+        this.categoryTreeService = categoryTreeService;
+    }
+
+    public ProductImportResult importProducts(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File cannot be empty");
+        }
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        log.info("Importing products from {}", file.getOriginalFilename());
+        long started = System.currentTimeMillis();
+
+        ImportRun run = new ImportRun(loadSubcategories());
+        if (filename.endsWith(".csv")) {
+            readCsv(file, run);
+        } else if (filename.endsWith(".xlsx")) {
+            readXlsx(file, run);
+        } else {
+            throw new IllegalArgumentException("Unsupported file type. Allowed types: xlsx, csv");
+        }
+        run.flush();
+
+        if (run.imported > 0) {
+            categoryTreeService.invalidate();
+        }
+        ProductImportResult result = run.result(System.currentTimeMillis() - started);
+        log.info("Imported {} of {} products in {} ms, {} rows failed", result.getImported(), result.getRowsRead(),
+                result.getDurationMillis(), result.getFailed());
+        return result;
+    }
+
+    private Map<String, SubcategoryRef> loadSubcategories() {
+        Map<String, SubcategoryRef> subcategories = new HashMap<>();
+        for (Object[] row : subcategoryRepository.findNameLookupRows()) {
+            if (row[0] != null) {
+                subcategories.putIfAbsent(((String) row[0]).trim(), new SubcategoryRef((Long) row[1], (String) row[2]));
+            }
+        }
+        return subcategories;
+    }
+
+    private void readCsv(MultipartFile file, ImportRun run) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            CsvRowReader csv = new CsvRowReader(reader);
+            String[] values;
+            while ((values = csv.next()) != null) {
+                run.accept(csv.getRecordNumber(), values);
+            }
+        } catch (IOException e) {
+            run.abort(e.getMessage());
+        }
+    }
+
+    private void readXlsx(MultipartFile file, ImportRun run) {
+        Path spooled = null;
+        try {
+            // OPCPackage reads the zip directory from a file without inflating the workbook
+            spooled = Files.createTempFile("product-import-", ".xlsx");
+            file.transferTo(spooled);
+            // Shared strings go to a temp file as well, so distinct cell values are not all held on the heap
+            try (OPCPackage pkg = OPCPackage.open(spooled.toFile(), PackageAccess.READ);
+                    TempFileSharedStrings strings = TempFileSharedStrings.open(pkg)) {
+                XSSFReader reader = new XSSFReader(pkg);
+                XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+                if (!sheets.hasNext()) {
+                    throw new IllegalArgumentException("Workbook has no sheets");
+                }
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings,
+                            new SheetRows(run), new DataFormatter(), false));
+                    parser.parse(new InputSource(sheet));
+                }
+            }
+        } catch (IOException | SAXException e) {
+            if (e.getCause() instanceof IllegalArgumentException invalid) {
+                throw invalid;
+            }
+            run.abort(e.getMessage());
+        } catch (OpenXML4JException | ParserConfigurationException e) {
+            throw new IllegalArgumentException("Invalid xlsx file");
+        } finally {
+            if (spooled != null) {
+                try {
+                    Files.deleteIfExists(spooled);
+                } catch (IOException e) {
+                    log.warn("Failed to delete spooled import {}: {}", spooled, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private record SubcategoryRef(Long id, String categoryName) {
+    }
+
+    private record PendingRow(long row, Productdto product, Long subcategoryId, String categoryName) {
+    }
+
+    private final class ImportRun {
+
+        private final Map<String, SubcategoryRef> subcategories;
+        private final List<PendingRow> pending = new ArrayList<>();
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private Map<String, Integer> columns;
+        private long lastRow;
+        private long rowsRead;
+        private long imported;
+        private long failed;
+        private boolean errorsTruncated;
+
+        ImportRun(Map<String, SubcategoryRef> subcategories) {
+            this.subcategories = subcategories;
+        }
+
+        void accept(long row, String[] values) {
+            lastRow = row;
+            if (columns == null) {
+                readHeader(values);
+                return;
+            }
+            if (isBlank(values)) {
+                return;
+            }
+            rowsRead++;
+            try {
+                pending.add(parse(row, values));
+            } catch (IllegalArgumentException e) {
+                fail(row, e.getMessage());
+            }
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void abort(String message) {
+            log.warn("Import stopped after row {}: {}", lastRow, message);
+            fail(lastRow + 1, "File could not be read past this row: " + message);
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            KeyHolder keys = new GeneratedKeyHolder();
+            try {
+                transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(
+                        connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                bind(ps, pending.get(i));
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return pending.size();
+                            }
+                        }, keys));
+                imported += pending.size();
+                index(keys.getKeyList());
+            } catch (DataAccessException e) {
+                String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                log.error("Import batch ending at row {} failed: {}", pending.get(pending.size() - 1).row(), cause);
+                for (PendingRow row : pending) {
+                    fail(row.row(), "Could not be saved: " + cause);
+                }
+            }
+            pending.clear();
+        }
+
+        ProductImportResult result(long durationMillis) {
+            if (columns == null) {
+                throw new IllegalArgumentException("File has no header row");
+            }
+            return new ProductImportResult(rowsRead, imported, failed, List.copyOf(errors), errorsTruncated,
+                    durationMillis);
+        }
+
+        private void readHeader(String[] values) {
+            columns = new HashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    columns.putIfAbsent(values[i].trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+            for (String column : REQUIRED_COLUMNS) {
+                if (!columns.containsKey(column)) {
+                    throw new IllegalArgumentException("Missing required column: " + column);
+                }
+            }
+        }
+
+        private PendingRow parse(long row, String[] values) {
+            String name = required(values, NAME);
+            if (name.length() > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Name is longer than " + MAX_NAME_LENGTH + " characters");
+            }
+            double price = parseNumber(required(values, PRICE), PRICE);
+            if (price < 0) {
+                throw new IllegalArgumentException("Price cannot be negative");
+            }
+            String subcategoryName = required(values, SUBCATEGORY);
+            SubcategoryRef subcategory = subcategories.get(subcategoryName);
+            if (subcategory == null) {
+                throw new IllegalArgumentException("Unknown subcategory: " + subcategoryName);
+            }
+            String description = optional(values, DESCRIPTION);
+            if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+                throw new IllegalArgumentException("Description is longer than " + MAX_DESCRIPTION_LENGTH + " characters");
+            }
+            String brand = optional(values, BRAND);
+            String ratingValue = optional(values, RATING);
+            Float rating = ratingValue != null ? (float) parseNumber(ratingValue, RATING) : null;
+            if (rating != null && (rating < 0 || rating > 5)) {
+                throw new IllegalArgumentException("Rating must be between 0 and 5");
+            }
+            String quantityValue = optional(values, QUANTITY);
+            Integer quantity = null;
+            if (quantityValue != null) {
+                double parsed = parseNumber(quantityValue, QUANTITY);
+                if (parsed < 0 || parsed != Math.rint(parsed) || parsed > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Quantity must be a non-negative whole number");
+                }
+                quantity = (int) parsed;
+            }
+
+            Productdto product = new Productdto(null, name, price, description, subcategoryName, brand, null, rating,
+                    quantity, Map.of());
+            return new PendingRow(row, product, subcategory.id(), subcategory.categoryName());
+        }
+
+        private void bind(PreparedStatement ps, PendingRow row) throws SQLException {
+            Productdto product = row.product();
+            ps.setString(1, product.getName());
+            ps.setDouble(2, product.getPrice());
+            ps.setString(3, product.getDescription());
+            ps.setString(4, product.getBrand());
+            if (product.getRating() != null) {
+                ps.setFloat(5, product.getRating());
+            } else {
+                ps.setNull(5, Types.FLOAT);
+            }
+            if (product.getQuantity() != null) {
+                ps.setInt(6, product.getQuantity());
+            } else {
+                ps.setNull(6, Types.INTEGER);
+            }
+            ps.setLong(7, row.subcategoryId());
+        }
+
+        private void index(List<Map<String, Object>> keys) {
+            if (keys.size() != pending.size()) {
+                log.warn("Driver returned {} keys for {} imported rows; they will be searchable after the next index rebuild",
+                        keys.size(), pending.size());
+                return;
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                PendingRow row = pending.get(i);
+                row.product().setId(((Number) keys.get(i).values().iterator().next()).longValue());
+                searchIndex.index(row.product(), row.categoryName());
+            }
+        }
+
+        private void fail(long row, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportError(row, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        private String required(String[] values, String column) {
+            String value = optional(values, column);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value for " + column);
+            }
+            return value;
+        }
+
+        private String optional(String[] values, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= values.length || values[index] == null) {
+                return null;
+            }
+            String value = values[index].trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private double parseNumber(String value, String column) {
+            try {
+                double number = Double.parseDouble(value.replace(",", ""));
+                if (Double.isNaN(number) || Double.isInfinite(number)) {
+                    throw new NumberFormatException();
+                }
+                return number;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + column + ": " + value);
+            }
+        }
+
+        private boolean isBlank(String[] values) {
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final ImportRun run;
+        private final List<String> values = new ArrayList<>();
+
+        SheetRows(ImportRun run) {
+            this.run = run;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            values.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            run.accept(rowNum + 1, values.toArray(new String[0]));
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : values.size();
+            while (values.size() <= column) {
+                values.add(null);
+            }
+            values.set(column, formattedValue);
+        }
+    }
+}
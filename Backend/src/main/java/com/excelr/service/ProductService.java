@@ -2,62 +2,217 @@ package com.excelr.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.excelr.model.ExportFormat;
+import com.excelr.model.ImageStatus;
 import com.excelr.model.Product;
+import com.excelr.model.ProductSearchPage;
+import com.excelr.model.ProductSearchSort;
+import com.excelr.model.ProductSlice;
+import com.excelr.model.ProductSortKey;
 import com.excelr.model.Productdto;
 import com.excelr.model.Subcategory;
 import com.excelr.repository.ProductRepository;
 import com.excelr.repository.SubcategoryRepository;
-import com.excelr.util.S3Util;
+import com.excelr.service.ImageUploadService.PendingUpload;
+import com.excelr.util.ProductSearchIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Slf4j
 @Service
 public class ProductService {
 
+    private static final int INDEX_BATCH_SIZE = 1000;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int MAX_SEARCH_WINDOW = 1000;
+    private static final int MAX_SLICE_SIZE = 100;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final int EXPORT_ROW_WINDOW = 100;
+    private static final int[] EXPORT_COLUMN_WIDTHS = {10, 30, 12, 60, 20, 8, 10, 20};
+    private static final String[] EXPORT_HEADERS =
+            {"ID", "Name", "Price", "Description", "Brand", "Rating", "Quantity", "Subcategory"};
+
     private final ProductRepository productRepository;
     private final SubcategoryRepository subcategoryRepository;
 
     @Autowired
-    private S3Util s3Util;
+    private ObjectDeletionService objectDeletionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
+    @Autowired
+    private Cache<Long, Productdto> productCache;
+
+    @Autowired
+    private ImageUploadService imageUploadService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public ProductService(ProductRepository productRepository, SubcategoryRepository subcategoryRepository) {
         this.productRepository = productRepository;
         this.subcategoryRepository = subcategoryRepository;
     }
 
+    @Transactional(readOnly = true)
     public Page<Productdto> getProductsBySubcategory(Long subcategoryId, Pageable pageable) {
         log.info("Fetching products for subcategory ID: {}", subcategoryId);
-        return productRepository.findBySubcategoryId(subcategoryId, pageable)
-                .map(this::mapProductToProductDTO);
+        return productRepository.findProductPageBySubcategoryId(subcategoryId, pageable);
     }
 
+    @Transactional(readOnly = true)
     public Page<Productdto> getProducts(Pageable pageable) {
         log.info("Fetching paginated list of all products.");
-        return productRepository.findAll(pageable)
-                .map(this::mapProductToProductDTO);
+        return productRepository.findProductPage(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductSlice getProductSlice(Long subcategoryId, String sort, String direction, String cursor,
+            int size, boolean includeTotal) {
+        ProductSortKey sortKey = ProductSortKey.from(sort);
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        int limit = Math.min(Math.max(size, 1), MAX_SLICE_SIZE);
+        log.info("Fetching product slice sorted by {} for subcategory ID: {}", sortKey, subcategoryId);
+
+        Object lastValue = null;
+        Long lastId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            if (!parts[0].equals(sortKey.name()) || !parts[1].equals(descending ? "D" : "A")) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+            try {
+                lastId = Long.parseLong(parts[3]);
+                if (sortKey == ProductSortKey.PRICE) {
+                    lastValue = Double.parseDouble(parts[2]);
+                } else if (sortKey == ProductSortKey.RATING && !parts[2].isEmpty()) {
+                    lastValue = Float.parseFloat(parts[2]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        List<Productdto> rows = productRepository.findProductsAfter(subcategoryId, sortKey, descending,
+                lastValue, lastId, limit + 1);
+        boolean hasNext = rows.size() > limit;
+        List<Productdto> content = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? encodeCursor(sortKey, descending, content.get(content.size() - 1)) : null;
+        Long total = null;
+        if (includeTotal) {
+            total = subcategoryId != null
+                    ? productRepository.countBySubcategoryId(subcategoryId)
+                    : productRepository.count();
+        }
+        return new ProductSlice(new ArrayList<>(content), limit, hasNext, nextCursor, total);
     }
 
     public Productdto getProductById(long id) {
         log.info("Fetching product with ID: {}", id);
-        Product product = productRepository.findById(id)
+        return productCache.get(id, key -> {
+            Product product = productRepository.findById(key)
+                    .orElseThrow(() -> {
+                        log.error("Product not found with ID: {}", key);
+                        return new RuntimeException("Product not found");
+                    });
+            return mapProductToProductDTO(product);
+        });
+    }
+
+    public ImageStatus getImageStatus(long id) {
+        return productRepository.findImageStatusById(id)
                 .orElseThrow(() -> {
                     log.error("Product not found with ID: {}", id);
                     return new RuntimeException("Product not found");
                 });
-        return mapProductToProductDTO(product);
+    }
+
+    public List<Long> getProductIdsBySubcategory(Long subcategoryId) {
+        return productRepository.findIdsBySubcategoryId(subcategoryId);
+    }
+
+    public List<Long> getProductIdsByCategory(Long categoryId) {
+        return productRepository.findIdsByCategoryId(categoryId);
+    }
+
+    public void refreshProducts(List<Long> ids) {
+        log.info("Refreshing {} cached and indexed products.", ids.size());
+        productCache.invalidateAll(ids);
+        stockLedger.invalidate(ids);
+        for (int from = 0; from < ids.size(); from += INDEX_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + INDEX_BATCH_SIZE, ids.size()));
+            Set<Long> missing = new HashSet<>(batch);
+            for (Product product : productRepository.findAllById(batch)) {
+                indexProduct(product);
+                missing.remove(product.getId());
+            }
+            missing.forEach(searchIndex::remove);
+        }
+    }
+
+    public Map<String, Object> getCacheStats() {
+        CacheStats stats = productCache.stats();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("size", productCache.estimatedSize());
+        response.put("hitCount", stats.hitCount());
+        response.put("missCount", stats.missCount());
+        response.put("hitRate", stats.hitRate());
+        response.put("evictionCount", stats.evictionCount());
+        response.put("loadFailureCount", stats.loadFailureCount());
+        response.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return response;
     }
 
     public Productdto createProduct(Productdto productDto, MultipartFile image) {
@@ -68,22 +223,32 @@ public class ProductService {
                     return new RuntimeException("Subcategory not found with name: " + productDto.getSubcategoryName());
                 });
 
-        String imageUrl = s3Util.uploadImage(image);
-        log.info("Image uploaded successfully. URL: {}", imageUrl);
+        PendingUpload upload = imageUploadService.stage(image);
 
         Product product = new Product();
         product.setName(productDto.getName());
         product.setPrice(productDto.getPrice());
         product.setDescription(productDto.getDescription());
         product.setBrand(productDto.getBrand());
-        product.setImage(imageUrl);
+        product.setImage(upload.getUrl());
+        product.setImageStatus(ImageStatus.PENDING);
         product.setRating(productDto.getRating());
         product.setQuantity(productDto.getQuantity());
         product.setSubcategory(subcategory);
 
-        Product savedProduct = productRepository.save(product);
-        log.info("Product created successfully with ID: {}", savedProduct.getId());
-        return mapProductToProductDTO(savedProduct);
+        Product savedProduct;
+        try {
+            savedProduct = productRepository.save(product);
+        } catch (RuntimeException e) {
+            imageUploadService.cancel(upload);
+            throw e;
+        }
+        long id = savedProduct.getId();
+        imageUploadService.start(upload,
+                (status, variantWidths) -> completeImageUpload(id, status, variantWidths, upload.getUrl(), null, null));
+        categoryTreeService.invalidate();
+        log.info("Product created successfully with ID: {}, image upload pending", id);
+        return indexProduct(savedProduct);
     }
 
     public Productdto updateProduct(long id, Productdto productDto, MultipartFile image) {
@@ -103,22 +268,20 @@ public class ProductService {
                     });
         }
 
-        String imageUrl = existingProduct.getImage();
+        String previousImageUrl = existingProduct.getImage();
+        String previousVariantWidths = existingProduct.getImageVariantWidths();
+        PendingUpload upload = null;
         if (image != null && !image.isEmpty()) {
-            try {
-                imageUrl = s3Util.updateImage(existingProduct.getImage(), image);
-                log.info("Image updated successfully. New URL: {}", imageUrl);
-            } catch (Exception e) {
-                log.error("Failed to update product image: {}", e.getMessage());
-                throw new RuntimeException("Failed to update product image: " + e.getMessage());
-            }
+            upload = imageUploadService.stage(image);
+            existingProduct.setImage(upload.getUrl());
+            existingProduct.setImageVariantWidths(null);
+            existingProduct.setImageStatus(ImageStatus.PENDING);
         }
 
         existingProduct.setName(productDto.getName() != null ? productDto.getName() : existingProduct.getName());
         existingProduct.setPrice(productDto.getPrice() != 0 ? productDto.getPrice() : existingProduct.getPrice());
         existingProduct.setDescription(productDto.getDescription() != null ? productDto.getDescription() : existingProduct.getDescription());
         existingProduct.setBrand(productDto.getBrand() != null ? productDto.getBrand() : existingProduct.getBrand());
-        existingProduct.setImage(imageUrl);
         existingProduct.setRating(productDto.getRating() != null ? productDto.getRating() : existingProduct.getRating());
         existingProduct.setQuantity(productDto.getQuantity() != null ? productDto.getQuantity() : existingProduct.getQuantity());
 
@@ -126,9 +289,27 @@ public class ProductService {
             existingProduct.setSubcategory(subcategory);
         }
 
-        Product updatedProduct = productRepository.save(existingProduct);
+        Product updatedProduct;
+        try {
+            updatedProduct = productRepository.save(existingProduct);
+        } catch (RuntimeException e) {
+            if (upload != null) {
+                imageUploadService.cancel(upload);
+            }
+            throw e;
+        }
+        if (upload != null) {
+            String newImageUrl = upload.getUrl();
+            imageUploadService.start(upload, (status, variantWidths) -> completeImageUpload(id, status, variantWidths,
+                    newImageUrl, previousImageUrl, previousVariantWidths));
+        }
+        productCache.invalidate(id);
+        stockLedger.invalidate(List.of(id));
+        if (subcategory != null) {
+            categoryTreeService.invalidate();
+        }
         log.info("Product updated successfully with ID: {}", id);
-        return mapProductToProductDTO(updatedProduct);
+        return indexProduct(updatedProduct);
     }
 
     public void deleteProduct(long id) {
@@ -139,71 +320,295 @@ public class ProductService {
                     return new RuntimeException("Product not found");
                 });
 
-        try {
-            if (product.getImage() != null) {
-                s3Util.deleteImage(product.getImage());
-                log.info("Image deleted successfully from S3 for product ID: {}", id);
+        transactionTemplate.executeWithoutResult(tx -> {
+            objectDeletionService.enqueue(product.getImage());
+            productRepository.delete(product);
+        });
+        productCache.invalidate(id);
+        stockLedger.invalidate(List.of(id));
+        searchIndex.remove(id);
+        categoryTreeService.invalidate();
+        log.info("Product deleted successfully with ID: {}", id);
+    }
+
+    public ProductSearchPage searchProducts(String keyword, String sort, String pageToken, int limit) {
+        log.info("Searching products with keyword: {}", keyword);
+        ProductSearchSort searchSort = ProductSearchSort.from(sort);
+        int size = Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+        int offset = decodePageToken(pageToken);
+        String sortName = searchSort.name().toLowerCase();
+        if (offset >= MAX_SEARCH_WINDOW) {
+            // Only the first MAX_SEARCH_WINDOW hits can be paged through
+            ProductSearchIndex.Hits hits = searchIndex.search(keyword, searchSort, 0, 1);
+            return new ProductSearchPage(new ArrayList<>(), hits.total(), true, sortName, size, null);
+        }
+        size = Math.min(size, MAX_SEARCH_WINDOW - offset);
+
+        ProductSearchIndex.Hits hits = searchIndex.search(keyword, searchSort, offset, size);
+        int nextOffset = offset + size;
+        String nextPageToken = nextOffset < Math.min(hits.total(), MAX_SEARCH_WINDOW)
+                ? encodePageToken(nextOffset) : null;
+        boolean truncated = hits.truncated() || hits.total() > MAX_SEARCH_WINDOW;
+        return new ProductSearchPage(loadProducts(hits.ids()), hits.total(), truncated, sortName, size, nextPageToken);
+    }
+
+    // The index only keeps ids; a page is read through the product cache in hit order
+    private List<Productdto> loadProducts(List<Long> ids) {
+        Map<Long, Productdto> loaded = productCache.getAll(ids, missing -> {
+            Map<Long, Productdto> rows = new HashMap<>();
+            for (Productdto dto : productRepository.findProductDtosByIds(new ArrayList<>(missing))) {
+                rows.put(dto.getId(), dto);
+            }
+            return rows;
+        });
+        List<Productdto> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Productdto product = loaded.get(id);
+            if (product != null) {
+                products.add(product);
             }
-        } catch (Exception e) {
-            log.error("Failed to delete image from S3 for product ID: {}. Error: {}", id, e.getMessage());
         }
+        return products;
+    }
 
-        productRepository.delete(product);
-        log.info("Product deleted successfully with ID: {}", id);
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSearchIndex() {
+        log.info("Building product search index.");
+        searchIndex.clear();
+        Pageable pageable = PageRequest.of(0, INDEX_BATCH_SIZE, Sort.by("id"));
+        Page<Product> page;
+        do {
+            page = productRepository.findAll(pageable);
+            page.forEach(this::indexProduct);
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+        log.info("Product search index built with {} products.", searchIndex.size());
     }
 
-    public List<Productdto> searchProducts(String keyword) {
-        log.info("Searching products with keyword: {}", keyword);
-        List<Product> products = productRepository.searchProducts(keyword);
-        return products.stream()
-                .map(this::mapProductToProductDTO)
-                .collect(Collectors.toList());
+    public void exportProductsToExcel(OutputStream outputStream) {
+        exportProducts(ExportFormat.XLSX, outputStream, rows -> { });
+    }
+
+    public long countProducts() {
+        return productRepository.count();
     }
 
-    public ByteArrayInputStream exportProductsToExcel() {
-        log.info("Exporting products to Excel.");
-        try (Workbook workbook = new XSSFWorkbook()) {
+    public long exportProducts(ExportFormat format, OutputStream outputStream, LongConsumer progress) {
+        log.info("Exporting products as {}.", format);
+        try {
+            long rows;
+            switch (format) {
+            case CSV:
+                rows = writeCsv(outputStream, progress);
+                break;
+            case NDJSON:
+                rows = writeNdjson(outputStream, progress);
+                break;
+            default:
+                rows = writeExcel(outputStream, progress);
+                break;
+            }
+            log.info("{} export completed successfully with {} products.", format, rows);
+            return rows;
+        } catch (IOException e) {
+            log.error("Failed to export products as {}: {}", format, e.getMessage());
+            throw new RuntimeException("Failed to export products: " + e.getMessage());
+        }
+    }
+
+    private long writeExcel(OutputStream outputStream, LongConsumer progress) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             Sheet sheet = workbook.createSheet("Products List");
+            for (int i = 0; i < EXPORT_COLUMN_WIDTHS.length; i++) {
+                sheet.setColumnWidth(i, EXPORT_COLUMN_WIDTHS[i] * 256);
+            }
 
             Row headerRow = sheet.createRow(0);
-            headerRow.createCell(0).setCellValue("ID");
-            headerRow.createCell(1).setCellValue("Name");
-            headerRow.createCell(2).setCellValue("Price");
-            headerRow.createCell(3).setCellValue("Description");
-            headerRow.createCell(4).setCellValue("Brand");
-            headerRow.createCell(5).setCellValue("Rating");
-            headerRow.createCell(6).setCellValue("Quantity");
-            headerRow.createCell(7).setCellValue("Subcategory");
-
-            List<Product> products = productRepository.findAll();
-
-            int rowNum = 1;
-            for (Product product : products) {
-                Row row = sheet.createRow(rowNum++);
+            for (int i = 0; i < EXPORT_HEADERS.length; i++) {
+                headerRow.createCell(i).setCellValue(EXPORT_HEADERS[i]);
+            }
+
+            long rows = forEachProduct(product -> {
+                Row row = sheet.createRow(sheet.getLastRowNum() + 1);
                 row.createCell(0).setCellValue(product.getId());
                 row.createCell(1).setCellValue(product.getName());
                 row.createCell(2).setCellValue(product.getPrice());
                 row.createCell(3).setCellValue(product.getDescription());
                 row.createCell(4).setCellValue(product.getBrand());
-                row.createCell(5).setCellValue(product.getRating());
-                row.createCell(6).setCellValue(product.getQuantity());
+                if (product.getRating() != null) {
+                    row.createCell(5).setCellValue(product.getRating());
+                }
+                if (product.getQuantity() != null) {
+                    row.createCell(6).setCellValue(product.getQuantity());
+                }
                 row.createCell(7).setCellValue(product.getSubcategory() != null ?
                         product.getSubcategory().getName() : "");
+            }, progress);
+
+            workbook.write(outputStream);
+            return rows;
+        } finally {
+            workbook.close();
+        }
+    }
+
+    private long writeCsv(OutputStream outputStream, LongConsumer progress) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(String.join(",", EXPORT_HEADERS));
+        writer.write("\r\n");
+        long rows = forEachProduct(product -> {
+            try {
+                writer.write(product.getId() + "," + csv(product.getName()) + "," + product.getPrice() + ","
+                        + csv(product.getDescription()) + "," + csv(product.getBrand()) + ","
+                        + (product.getRating() != null ? product.getRating() : "") + ","
+                        + (product.getQuantity() != null ? product.getQuantity() : "") + ","
+                        + csv(product.getSubcategory() != null ? product.getSubcategory().getName() : null));
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            for (int i = 0; i < 8; i++) {
-                sheet.autoSizeColumn(i);
+        }, progress);
+        writer.flush();
+        return rows;
+    }
+
+    private long writeNdjson(OutputStream outputStream, LongConsumer progress) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        ObjectWriter json = objectMapper.writerFor(Productdto.class);
+        long rows = forEachProduct(product -> {
+            try {
+                writer.write(json.writeValueAsString(mapProductToProductDTO(product)));
+                writer.write("\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            log.info("Excel export completed successfully.");
-            return new ByteArrayInputStream(outputStream.toByteArray());
-        } catch (IOException e) {
-            log.error("Failed to export products to Excel: {}", e.getMessage());
-            throw new RuntimeException("Failed to export products to Excel: " + e.getMessage());
+        }, progress);
+        writer.flush();
+        return rows;
+    }
+
+    private long forEachProduct(Consumer<Product> action, LongConsumer progress) throws IOException {
+        long rows = 0;
+        long lastId = 0;
+        List<Product> chunk;
+        try {
+            do {
+                chunk = productRepository.findChunkAfter(lastId, PageRequest.ofSize(EXPORT_CHUNK_SIZE));
+                for (Product product : chunk) {
+                    action.accept(product);
+                    lastId = product.getId();
+                }
+                rows += chunk.size();
+                progress.accept(rows);
+                // With open-in-view the streaming thread shares the request's persistence context; detach each
+                // chunk so exported products don't pile up in it
+                entityManager.clear();
+            } while (chunk.size() == EXPORT_CHUNK_SIZE);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
         }
+        return value;
+    }
+
+    private void completeImageUpload(long id, ImageStatus status, String variantWidths, String uploadedImageUrl,
+            String previousImageUrl, String previousVariantWidths) {
+        if (status == ImageStatus.READY) {
+            Boolean applied = transactionTemplate.execute(tx -> {
+                if (productRepository.updateImageStatus(id, uploadedImageUrl, ImageStatus.READY, variantWidths) == 0) {
+                    objectDeletionService.enqueue(uploadedImageUrl);
+                    return false;
+                }
+                objectDeletionService.enqueue(previousImageUrl);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(applied)) {
+                log.warn("Product {} changed before its image upload finished, discarding {}", id, uploadedImageUrl);
+                return;
+            }
+            log.info("Image ready for product ID: {}", id);
+        } else {
+            log.error("Image upload failed for product ID: {}", id);
+            productRepository.revertImage(id, uploadedImageUrl, previousImageUrl, previousVariantWidths, ImageStatus.FAILED);
+        }
+        refreshProducts(List.of(id));
+    }
+
+    private static String encodeCursor(ProductSortKey sortKey, boolean descending, Productdto last) {
+        String value;
+        switch (sortKey) {
+        case PRICE:
+            value = Double.toString(last.getPrice());
+            break;
+        case RATING:
+            value = last.getRating() != null ? Float.toString(last.getRating()) : "";
+            break;
+        default:
+            value = "";
+            break;
+        }
+        String raw = sortKey.name() + "|" + (descending ? "D" : "A") + "|" + value + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String encodePageToken(int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("o:" + offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodePageToken(String pageToken) {
+        if (pageToken == null || pageToken.isBlank()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            if (!decoded.startsWith("o:")) {
+                throw new IllegalArgumentException("Invalid page token");
+            }
+            int offset = Integer.parseInt(decoded.substring(2));
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid page token");
+            }
+            return offset;
+        } catch (IllegalArgumentException e) {
+            // Covers malformed base64 and numbers as well as the checks above
+            throw new IllegalArgumentException("Invalid page token");
+        }
+    }
+
+    private Productdto indexProduct(Product product) {
+        Productdto dto = mapProductToProductDTO(product);
+        Subcategory subcategory = product.getSubcategory();
+        String categoryName = subcategory != null && subcategory.getCategory() != null
+                ? subcategory.getCategory().getName() : null;
+        searchIndex.index(dto, categoryName);
+        return dto;
     }
 
-    private Productdto mapProductToProductDTO(Product product) {
+    Productdto mapProductToProductDTO(Product product) {
         return new Productdto(
                 product.getId(),
                 product.getName(),
@@ -213,7 +618,8 @@ public class ProductService {
                 product.getBrand(),
                 product.getImage(),
                 product.getRating(),
-                product.getQuantity()
+                product.getQuantity(),
+                product.getImageVariantWidths()
         );
     }
 }
@@ -1,47 +1,131 @@
 package com.excelr.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.excelr.exceptionHandler.PaymentGatewayException;
 import com.razorpay.Order;
 import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
-public class RazorpayService {
+public class RazorpayService implements PaymentGateway {
 	
 	@Value("${razorpay.key.id}")
 	private String keyId;
 
 	@Value("${razorpay.key.secret}")
 	private String keySecret;
-	
-	public String createOrder(Double amount, String currency, String receipt) throws RazorpayException {
-		RazorpayClient razorpay = new RazorpayClient(keyId, keySecret);
 
+	@Value("${razorpay.webhook.secret:}")
+	private String webhookSecret;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+	// Every RazorpayClient rebuilds the SDK's shared OkHttp client, so one instance keeps its connection pool warm
+	private RazorpayClient razorpay;
+
+	// Mac is not thread-safe but costly to look up and key, so each request thread keeps its own
+	private ThreadLocal<Mac> checkoutMac;
+	private ThreadLocal<Mac> webhookMac;
+
+	@PostConstruct
+	public void init() throws RazorpayException {
+		razorpay = new RazorpayClient(keyId, keySecret);
+		checkoutMac = hmacSha256(keySecret);
+		webhookMac = webhookSecret.isEmpty() ? null : hmacSha256(webhookSecret);
+	}
+	
+	@Override
+	public String createOrder(long amountPaise, String currency, String receipt) {
 		JSONObject orderRequest = new JSONObject();
-		orderRequest.put("amount", amount * 100); // Amount in paise
+		orderRequest.put("amount", amountPaise);
 		orderRequest.put("currency", currency);
 		orderRequest.put("receipt", receipt);
 
-		Order order = razorpay.orders.create(orderRequest);
-		return order.toString();
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String outcome = "success";
+		try {
+			Order order = razorpay.orders.create(orderRequest);
+			return order.get("id");
+		} catch (RazorpayException e) {
+			outcome = failed(e);
+			throw new PaymentGatewayException("Razorpay rejected the order: " + e.getMessage(), e);
+		} catch (RuntimeException e) {
+			outcome = failed(e);
+			throw e;
+		} finally {
+			sample.stop(meterRegistry.timer("payment.gateway.requests", "operation", "create_order", "outcome", outcome));
+		}
 	}
 
 	public boolean verifyPayment(String orderId, String paymentId, String signature) {
-		String generatedSignature = HmacSHA256(orderId + "|" + paymentId, keySecret);
-		return generatedSignature.equals(signature);
+		return record("checkout",
+				matches(checkoutMac.get(), (orderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8), signature));
+	}
+
+	public boolean verifyWebhook(byte[] body, String signature) {
+		if (webhookSecret.isEmpty()) {
+			log.warn("Rejecting webhook: razorpay.webhook.secret is not configured");
+			return record("webhook", false);
+		}
+		return record("webhook", matches(webhookMac.get(), body, signature));
+	}
+
+	private String failed(Exception e) {
+		meterRegistry.counter("payment.gateway.errors", "operation", "create_order",
+				"exception", e.getClass().getSimpleName()).increment();
+		return "error";
 	}
 
-	private String HmacSHA256(String data, String secret) {
+	private boolean record(String type, boolean valid) {
+		meterRegistry.counter("payment.signature.verifications", "type", type, "result", valid ? "valid" : "invalid")
+				.increment();
+		return valid;
+	}
+
+	// Compares raw digests in constant time; a malformed signature simply fails to match
+	private static boolean matches(Mac mac, byte[] data, String signature) {
+		if (signature == null) {
+			return false;
+		}
+		byte[] provided;
 		try {
-			javax.crypto.Mac mac = javax.crypto.Mac.getInstance("HmacSHA256");
-			mac.init(new javax.crypto.spec.SecretKeySpec(secret.getBytes(), "HmacSHA256"));
-			byte[] hmacData = mac.doFinal(data.getBytes());
-			return javax.xml.bind.DatatypeConverter.printHexBinary(hmacData).toLowerCase();
-		} catch (Exception e) {
-			throw new RuntimeException("Failed to calculate HMAC SHA256", e);
+			provided = HexFormat.of().parseHex(signature);
+		} catch (IllegalArgumentException e) {
+			return false;
 		}
+		return MessageDigest.isEqual(mac.doFinal(data), provided);
+	}
+
+	private static ThreadLocal<Mac> hmacSha256(String secret) {
+		SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+		return ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance("HmacSHA256");
+				mac.init(key);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("Failed to initialise HMAC SHA256", e);
+			}
+		});
 	}
 }
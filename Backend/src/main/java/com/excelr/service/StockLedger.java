@@ -0,0 +1,111 @@
+package com.excelr.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-process front for stock reservations on hot products. Reservations for
+ * the same product are serialized on a lock stripe, so concurrent checkouts
+ * queue here instead of piling up on the database row lock, and a short-lived
+ * copy of the available quantity lets sold-out products be rejected without a
+ * database round trip. The database's conditional update stays authoritative;
+ * a stale copy only ever costs an extra query or, for at most the TTL, an
+ * early "sold out".
+ */
+@Component
+public class StockLedger {
+
+    private final boolean enabled;
+    private final int stripeCount;
+    private final long ttlMillis;
+
+    private ReentrantLock[] stripes;
+    private final Map<Long, Available> available = new ConcurrentHashMap<>();
+
+    public StockLedger(@Value("${stock.ledger.enabled:true}") boolean enabled,
+            @Value("${stock.ledger.stripes:64}") int stripeCount, @Value("${stock.ledger.ttl.ms:2000}") long ttlMillis) {
+        this.enabled = enabled;
+        this.stripeCount = stripeCount;
+        this.ttlMillis = ttlMillis;
+    }
+
+    @PostConstruct
+    public void init() {
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs {@code action} holding the stripes of all given products, acquired
+     * in a fixed order so multi-product reservations cannot deadlock.
+     */
+    public <T> T withLocks(Collection<Long> productIds, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Long productId : productIds) {
+            indexes.add(stripe(productId));
+        }
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int index : indexes) {
+                stripes[index].unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns false when the product is known to have less than {@code quantity}
+     * available. Must be called while holding the product's stripe.
+     */
+    public boolean mayHave(long productId, int quantity, LongFunction<Integer> loader) {
+        if (!enabled) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        Available entry = available.get(productId);
+        if (entry == null || now - entry.loadedAt > ttlMillis) {
+            entry = new Available(loader.apply(productId), now);
+            available.put(productId, entry);
+        }
+        return entry.quantity >= quantity;
+    }
+
+    /**
+     * Applies a change this node made to the database. Must be called while
+     * holding the product's stripe.
+     */
+    public void adjust(long productId, int delta) {
+        if (enabled) {
+            available.computeIfPresent(productId, (id, entry) -> new Available(entry.quantity + delta, entry.loadedAt));
+        }
+    }
+
+    public void invalidate(Collection<Long> productIds) {
+        productIds.forEach(available::remove);
+    }
+
+    private int stripe(long productId) {
+        return (Long.hashCode(productId) & 0x7fffffff) % stripes.length;
+    }
+
+    private record Available(int quantity, long loadedAt) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.excelr.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.excelr.exceptionHandler.InsufficientStockException;
+import com.excelr.model.Productdto;
+import com.excelr.model.ReservationLine;
+import com.excelr.model.ReservationStatus;
+import com.excelr.model.StockReservation;
+import com.excelr.repository.ProductRepository;
+import com.excelr.repository.StockReservationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds stock for a checkout between order creation and payment. Reserving
+ * decrements {@code Product.quantity} with a conditional update, so stock can
+ * never go negative; the hold is confirmed when the payment is verified, or
+ * released (quantity restored) when it fails or its TTL runs out.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private static final int EXPIRY_BATCH_SIZE = 500;
+    private static final int MAX_CONFIRM_ATTEMPTS = 4;
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StockLedger ledger;
+    private final Cache<Long, Productdto> productCache;
+    private final long ttlMinutes;
+
+    public StockReservationService(ProductRepository productRepository,
+            StockReservationRepository reservationRepository, TransactionTemplate transactionTemplate,
+            StockLedger ledger, Cache<Long, Productdto> productCache,
+            @Value("${stock.reservation.ttl.minutes:15}") long ttlMinutes) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ledger = ledger;
+        this.productCache = productCache;
+        this.ttlMinutes = ttlMinutes;
+    }
+
+    /**
+     * Reserves every line or none of them.
+     *
+     * @throws InsufficientStockException if any product lacks the requested quantity
+     */
+    public StockReservation reserve(List<ReservationLine> lines) {
+        List<ReservationLine> merged = merge(lines);
+        List<Long> productIds = merged.stream().map(ReservationLine::getProductId).toList();
+        StockReservation reservation = ledger.withLocks(productIds, () -> {
+            for (ReservationLine line : merged) {
+                if (!ledger.mayHave(line.getProductId(), line.getQuantity(), this::loadQuantity)) {
+                    throw new InsufficientStockException(line.getProductId());
+                }
+            }
+            StockReservation saved;
+            try {
+                saved = transactionTemplate.execute(tx -> {
+                    // Lines are sorted by product id, so competing reservations lock rows in the same order
+                    for (ReservationLine line : merged) {
+                        if (productRepository.decrementStock(line.getProductId(), line.getQuantity()) == 0) {
+                            throw new InsufficientStockException(line.getProductId());
+                        }
+                    }
+                    StockReservation held = new StockReservation();
+                    held.setStatus(ReservationStatus.HELD);
+                    held.setCreatedAt(Instant.now());
+                    held.setExpiresAt(held.getCreatedAt().plus(Duration.ofMinutes(ttlMinutes)));
+                    held.setLines(new ArrayList<>(merged));
+                    return reservationRepository.save(held);
+                });
+            } catch (InsufficientStockException e) {
+                ledger.invalidate(productIds);
+                throw e;
+            }
+            merged.forEach(line -> ledger.adjust(line.getProductId(), -line.getQuantity()));
+            return saved;
+        });
+        stockChanged(merged);
+        log.info("Reserved stock for {} products in reservation {}", merged.size(), reservation.getId());
+        return reservation;
+    }
+
+    public void attachOrder(Long reservationId, String orderId) {
+        reservationRepository.attachOrder(reservationId, orderId);
+    }
+
+    /**
+     * Confirms the reservation behind a paid order. A payment that arrives after
+     * its hold expired takes the stock again if it is still available; returns
+     * false when it is not, so the order can be refunded. Safe to call more than
+     * once and concurrently for one order: the stock is only taken once.
+     */
+    public boolean confirm(String orderId) {
+        Optional<StockReservation> found = reservationRepository.findFirstByOrderIdOrderByIdDesc(orderId);
+        if (found.isEmpty()) {
+            return true;
+        }
+        StockReservation reservation = found.get();
+        ReservationStatus status = ReservationStatus.HELD;
+        // Every lost compare-and-set means another caller moved the reservation on, so re-read the row
+        for (int attempt = 0; attempt < MAX_CONFIRM_ATTEMPTS; attempt++) {
+            if (status == ReservationStatus.CONFIRMED) {
+                return true;
+            }
+            if (status == ReservationStatus.HELD) {
+                if (reservationRepository.transition(reservation.getId(), ReservationStatus.HELD,
+                        ReservationStatus.CONFIRMED) == 1) {
+                    log.info("Confirmed reservation {} for order {}", reservation.getId(), orderId);
+                    return true;
+                }
+            } else {
+                try {
+                    if (retake(reservation, status)) {
+                        log.warn("Order {} was paid after its reservation lapsed; stock taken again", orderId);
+                        return true;
+                    }
+                } catch (InsufficientStockException e) {
+                    log.error("Order {} was paid after its reservation lapsed and product {} is sold out", orderId,
+                            e.getProductId());
+                    return false;
+                }
+            }
+            status = reservationRepository.findStatusById(reservation.getId()).orElse(ReservationStatus.RELEASED);
+        }
+        return status == ReservationStatus.CONFIRMED;
+    }
+
+    /**
+     * Takes the stock of a released or expired reservation again and confirms it.
+     * The status moves to CONFIRMED in the same transaction as the stock
+     * decrements, so a concurrent retake blocks on the reservation row and then
+     * finds it confirmed; when stock is short everything rolls back.
+     */
+    private boolean retake(StockReservation reservation, ReservationStatus lapsed) {
+        List<Long> productIds = reservation.getLines().stream().map(ReservationLine::getProductId).toList();
+        boolean taken;
+        try {
+            taken = ledger.withLocks(productIds, () -> {
+                Boolean won = transactionTemplate.execute(tx -> {
+                    if (reservationRepository.transition(reservation.getId(), lapsed,
+                            ReservationStatus.CONFIRMED) == 0) {
+                        return false;
+                    }
+                    for (ReservationLine line : reservation.getLines()) {
+                        if (productRepository.decrementStock(line.getProductId(), line.getQuantity()) == 0) {
+                            throw new InsufficientStockException(line.getProductId());
+                        }
+                    }
+                    return true;
+                });
+                if (Boolean.TRUE.equals(won)) {
+                    reservation.getLines().forEach(line -> ledger.adjust(line.getProductId(), -line.getQuantity()));
+                    return true;
+                }
+                return false;
+            });
+        } catch (InsufficientStockException e) {
+            ledger.invalidate(productIds);
+            throw e;
+        }
+        if (taken) {
+            stockChanged(reservation.getLines());
+        }
+        return taken;
+    }
+
+    public void release(String orderId) {
+        reservationRepository.findFirstByOrderIdOrderByIdDesc(orderId)
+                .ifPresent(reservation -> release(reservation.getId(), ReservationStatus.RELEASED));
+    }
+
+    public void release(Long reservationId, ReservationStatus outcome) {
+        StockReservation reservation = reservationRepository.findById(reservationId).orElse(null);
+        if (reservation == null) {
+            return;
+        }
+        List<Long> productIds = reservation.getLines().stream().map(ReservationLine::getProductId).toList();
+        boolean released = ledger.withLocks(productIds, () -> {
+            Boolean restored = transactionTemplate.execute(tx -> {
+                if (reservationRepository.transition(reservationId, ReservationStatus.HELD, outcome) == 0) {
+                    return false;
+                }
+                for (ReservationLine line : reservation.getLines()) {
+                    productRepository.incrementStock(line.getProductId(), line.getQuantity());
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(restored)) {
+                reservation.getLines().forEach(line -> ledger.adjust(line.getProductId(), line.getQuantity()));
+                return true;
+            }
+            return false;
+        });
+        if (released) {
+            stockChanged(reservation.getLines());
+            log.info("Reservation {} {}, stock restored", reservationId, outcome.name().toLowerCase());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep.ms:30000}")
+    public void expireReservations() {
+        List<Long> expired;
+        do {
+            expired = reservationRepository.findExpiredIds(Instant.now(), PageRequest.of(0, EXPIRY_BATCH_SIZE));
+            expired.forEach(id -> release(id, ReservationStatus.EXPIRED));
+        } while (expired.size() == EXPIRY_BATCH_SIZE);
+    }
+
+    // Search results are read through the product cache, so evicting it keeps both current
+    private void stockChanged(List<ReservationLine> lines) {
+        productCache.invalidateAll(lines.stream().map(ReservationLine::getProductId).toList());
+    }
+
+    private Integer loadQuantity(long productId) {
+        return productRepository.findQuantityById(productId).orElse(0);
+    }
+
+    private static List<ReservationLine> merge(List<ReservationLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("At least one item is required");
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (ReservationLine line : lines) {
+            if (line.getProductId() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Each item needs a product id and a positive quantity");
+            }
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        List<ReservationLine> merged = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> merged.add(new ReservationLine(productId, quantity)));
+        return merged;
+    }
+}
@@ -9,8 +9,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.excelr.model.Subcategory;
+import com.excelr.repository.ProductRepository;
 import com.excelr.repository.SubcategoryRepository;
 
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +24,21 @@ public class SubcategoryService {
     @Autowired
     SubcategoryRepository subCategoriesRepo;
 
+    @Autowired
+    CategoryTreeService categoryTreeService;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    ObjectDeletionService objectDeletionService;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
     public ResponseEntity<?> getProductsBySubCategoryId(Long subcategoryId) {
         log.info("Fetching products for subcategory ID: {}", subcategoryId);
         Optional<Subcategory> subCategories = subCategoriesRepo.findById(subcategoryId);
@@ -68,6 +85,7 @@ public class SubcategoryService {
     public ResponseEntity<?> createSubcategory(Subcategory subcategory) {
         log.info("Creating new subcategory with name: {}", subcategory.getName());
         Subcategory savedSubcategory = subCategoriesRepo.save(subcategory);
+        categoryTreeService.invalidate();
         log.info("Subcategory created successfully with ID: {}", savedSubcategory.getId());
         return ResponseEntity.ok("Saved successfully");
     }
@@ -81,6 +99,8 @@ public class SubcategoryService {
             subcategory.setDescription(updatedSubcategory.getDescription());
             subcategory.setCategory(updatedSubcategory.getCategory());
             subCategoriesRepo.save(subcategory);
+            categoryTreeService.invalidate();
+            productService.refreshProducts(productService.getProductIdsBySubcategory(id));
             log.info("Subcategory updated successfully with ID: {}", id);
             Map<String, String> res = new HashMap<>();
             res.put("message", "Updated successfully");
@@ -95,7 +115,13 @@ public class SubcategoryService {
         log.info("Deleting subcategory with ID: {}", id);
         Optional<Subcategory> sub = subCategoriesRepo.findById(id);
         if (sub.isPresent()) {
-            subCategoriesRepo.deleteById(id);
+            List<Long> productIds = productService.getProductIdsBySubcategory(id);
+            transactionTemplate.executeWithoutResult(tx -> {
+                objectDeletionService.enqueue(productRepository.findImagesBySubcategoryId(id));
+                subCategoriesRepo.deleteById(id);
+            });
+            categoryTreeService.invalidate();
+            productService.refreshProducts(productIds);
             log.info("Subcategory deleted successfully with ID: {}", id);
             return ResponseEntity.ok("Deleted successfully");
         } else {
@@ -8,8 +8,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import com.excelr.model.AuthenticatedUser;
 import com.excelr.model.User;
 import com.excelr.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,6 +22,9 @@ public class UserService {
     @Autowired
     UserRepository repository;
 
+    @Autowired
+    Cache<Integer, AuthenticatedUser> principalCache;
+
     public ResponseEntity<?> getUsers(Pageable pageable) {
         log.info("Fetching users with pagination");
         Page<User> users = repository.findAll(pageable);
@@ -39,6 +44,7 @@ public class UserService {
             existingUser.setPhoneNumber(user.getPhoneNumber());
             existingUser.setRole(user.getRole());
             repository.save(existingUser);
+            principalCache.invalidate(id);
             log.info("User with ID: {} updated successfully", id);
             return ResponseEntity.ok("User updated successfully");
         } else {
@@ -52,6 +58,7 @@ public class UserService {
         Optional<User> userOpt = repository.findById(id);
         if (userOpt.isPresent()) {
             repository.deleteById(id);
+            principalCache.invalidate(id);
             log.info("User with ID: {} deleted successfully", id);
             return ResponseEntity.ok("User deleted successfully");
         } else {
@@ -0,0 +1,87 @@
+package com.excelr.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: quoted fields may contain separators,
+ * doubled quotes and line breaks. Only the current record is held in memory.
+ */
+public class CsvRowReader {
+
+	private final Reader reader;
+	private int peeked = -2;
+	private long recordNumber;
+
+	public CsvRowReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	public long getRecordNumber() {
+		return recordNumber;
+	}
+
+	/**
+	 * Returns the next record, or null at end of input.
+	 */
+	public String[] next() throws IOException {
+		int c = read();
+		if (c == -1) {
+			return null;
+		}
+		if (recordNumber == 0 && c == '\uFEFF') {
+			c = read();
+		}
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		while (true) {
+			if (quoted) {
+				if (c == -1) {
+					throw new IOException("Unterminated quoted field in record " + (recordNumber + 1));
+				}
+				if (c == '"') {
+					int following = read();
+					if (following == '"') {
+						field.append('"');
+					} else {
+						quoted = false;
+						c = following;
+						continue;
+					}
+				} else {
+					field.append((char) c);
+				}
+			} else if (c == '"' && field.length() == 0) {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\r' || c == '\n' || c == -1) {
+				if (c == '\r') {
+					int following = read();
+					if (following != '\n') {
+						peeked = following;
+					}
+				}
+				fields.add(field.toString());
+				recordNumber++;
+				return fields.toArray(new String[0]);
+			} else {
+				field.append((char) c);
+			}
+			c = read();
+		}
+	}
+
+	private int read() throws IOException {
+		if (peeked != -2) {
+			int c = peeked;
+			peeked = -2;
+			return c;
+		}
+		return reader.read();
+	}
+}
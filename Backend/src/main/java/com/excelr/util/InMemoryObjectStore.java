@@ -0,0 +1,72 @@
+package com.excelr.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps objects on the heap. Meant for benchmarks, load tests and local runs
+ * without S3; nothing survives a restart and the URLs it hands out are not served.
+ */
+public class InMemoryObjectStore implements ObjectStore {
+
+	private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+	private final String baseUrl;
+
+	public InMemoryObjectStore(String baseUrl) {
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+	}
+
+	@Override
+	public void put(String key, Path file, String contentType) {
+		try {
+			objects.put(key, Files.readAllBytes(file));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error storing object " + key, e);
+		}
+	}
+
+	@Override
+	public void put(String key, InputStream content, long length, String contentType) {
+		try {
+			objects.put(key, content.readAllBytes());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error storing object " + key, e);
+		}
+	}
+
+	@Override
+	public void put(String key, byte[] content, String contentType) {
+		objects.put(key, content.clone());
+	}
+
+	@Override
+	public void delete(String key) {
+		objects.remove(key);
+	}
+
+	@Override
+	public String urlFor(String key) {
+		return baseUrl + key;
+	}
+
+	@Override
+	public String keyOf(String url) {
+		if (url == null || !url.startsWith(baseUrl)) {
+			return null;
+		}
+		return url.substring(baseUrl.length());
+	}
+
+	public byte[] get(String key) {
+		return objects.get(key);
+	}
+
+	public int size() {
+		return objects.size();
+	}
+}
@@ -2,7 +2,6 @@ package com.excelr.util;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -11,14 +10,19 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.excelr.model.User;
+import com.excelr.model.AuthenticatedUser;
 import com.excelr.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Component
 public class JwtFilter extends OncePerRequestFilter {
     @Autowired
@@ -27,35 +31,45 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private Cache<Integer, AuthenticatedUser> principalCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
         String authorizationHeader = request.getHeader("Authorization");
 
-        String token = null;
-        String username = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            token = authorizationHeader.substring(7);
-            username = jwtUtil.extractUsername(token);
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            Optional<User> userDetails = userRepository.findByUsername(username);
-
-            if (userDetails.isPresent() && jwtUtil.validateToken(token, username)) {
-                User user = userDetails.get();
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                user, 
-                                null, 
-                                Collections.singletonList(new SimpleGrantedAuthority(user.getRole().getAuthority()))
-                        );
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                Claims claims = jwtUtil.parseClaims(authorizationHeader.substring(7));
+                AuthenticatedUser user = resolvePrincipal(claims);
+                if (user != null && user.getRole() != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    user,
+                                    null,
+                                    Collections.singletonList(new SimpleGrantedAuthority(user.getRole().getAuthority()))
+                            );
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Rejected bearer token: {}", e.getMessage());
             }
         }
 
         chain.doFilter(request, response);
     }
-}
 
+    private AuthenticatedUser resolvePrincipal(Claims claims) {
+        Integer userId = claims.get(JwtUtil.USER_ID_CLAIM, Integer.class);
+        if (userId == null) {
+            return null;
+        }
+        AuthenticatedUser user = principalCache.get(userId, id -> userRepository.findById(id)
+                .map(found -> new AuthenticatedUser(found.getId(), found.getUsername(), found.getRole()))
+                .orElse(null));
+        // A renamed user must log in again; the token subject has to match the current username.
+        return user != null && user.getUsername().equals(claims.getSubject()) ? user : null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.excelr.util;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the HMAC keys used to sign and verify JWTs. Keys come from
+ * {@code jwt.keys} ({@code kid:base64secret,...}) and/or a PKCS12 keystore
+ * of secret key entries whose aliases are the key ids. {@code jwt.active-kid}
+ * picks the signing key; every other loaded key is still accepted for
+ * verification, which lets replicas rotate keys without logging users out.
+ * Key ids are case-insensitive, because PKCS12 keystores lowercase aliases.
+ */
+@Slf4j
+@Component
+public class JwtKeyManager {
+
+    private static final String EPHEMERAL_KID = "ephemeral";
+
+    private final String configuredKeys;
+    private final String activeKid;
+    private final String keystorePath;
+    private final String keystorePassword;
+
+    private Map<String, Key> keys;
+    private String signingKid;
+
+    public JwtKeyManager(@Value("${jwt.keys:}") String configuredKeys, @Value("${jwt.active-kid:}") String activeKid,
+            @Value("${jwt.keystore.path:}") String keystorePath,
+            @Value("${jwt.keystore.password:}") String keystorePassword) {
+        this.configuredKeys = configuredKeys;
+        this.activeKid = activeKid;
+        this.keystorePath = keystorePath;
+        this.keystorePassword = keystorePassword;
+    }
+
+    @PostConstruct
+    public void load() throws Exception {
+        Map<String, Key> loaded = new LinkedHashMap<>();
+        if (!configuredKeys.isBlank()) {
+            for (String entry : configuredKeys.split(",")) {
+                String[] parts = entry.trim().split(":", 2);
+                if (parts.length != 2 || parts[0].isBlank()) {
+                    throw new IllegalStateException("Invalid jwt.keys entry, expected kid:base64secret");
+                }
+                put(loaded, parts[0], Keys.hmacShaKeyFor(Base64.getDecoder().decode(parts[1].trim())));
+            }
+        }
+        if (!keystorePath.isBlank()) {
+            loadKeystore().forEach((kid, key) -> put(loaded, kid, key));
+        }
+
+        if (loaded.isEmpty()) {
+            log.warn("No JWT signing keys configured; using an ephemeral key. Tokens will not survive a restart "
+                    + "or be accepted by other instances.");
+            loaded.put(EPHEMERAL_KID, Keys.secretKeyFor(SignatureAlgorithm.HS256));
+        }
+
+        String kid = activeKid.isBlank() && loaded.size() == 1 ? loaded.keySet().iterator().next() : normalize(activeKid);
+        if (!loaded.containsKey(kid)) {
+            throw new IllegalStateException("jwt.active-kid '" + kid + "' does not match any loaded key " + loaded.keySet());
+        }
+        keys = Collections.unmodifiableMap(loaded);
+        signingKid = kid;
+        log.info("Loaded JWT keys {} (signing with '{}')", keys.keySet(), signingKid);
+    }
+
+    public String getSigningKeyId() {
+        return signingKid;
+    }
+
+    public Key getSigningKey() {
+        return keys.get(signingKid);
+    }
+
+    public Key getVerificationKey(String kid) {
+        Key key = keys.get(kid != null ? normalize(kid) : signingKid);
+        if (key == null) {
+            throw new SignatureException("Unknown JWT key id: " + kid);
+        }
+        return key;
+    }
+
+    private static void put(Map<String, Key> loaded, String kid, Key key) {
+        if (loaded.putIfAbsent(normalize(kid), key) != null) {
+            throw new IllegalStateException("JWT key id '" + kid + "' is configured more than once (ids ignore case)");
+        }
+    }
+
+    private static String normalize(String kid) {
+        return kid.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Map<String, Key> loadKeystore() throws Exception {
+        char[] password = keystorePassword.toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(Paths.get(keystorePath))) {
+            keyStore.load(in, password);
+        }
+        Map<String, Key> loaded = new LinkedHashMap<>();
+        Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            if (keyStore.entryInstanceOf(alias, KeyStore.SecretKeyEntry.class)) {
+                SecretKey secret = (SecretKey) keyStore.getKey(alias, password);
+                loaded.put(alias, Keys.hmacShaKeyFor(secret.getEncoded()));
+            }
+        }
+        return loaded;
+    }
+}
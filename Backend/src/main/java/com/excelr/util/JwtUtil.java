@@ -5,44 +5,60 @@ import java.util.Date;
 
 import org.springframework.stereotype.Component;
 
+import com.excelr.model.User;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 
 @Component
 public class JwtUtil {
-    private final Key SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256); // Generates a secure key
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "uid";
+
+    private final JwtKeyManager keyManager;
+    private final JwtParser parser;
+
+    public JwtUtil(JwtKeyManager keyManager) {
+        this.keyManager = keyManager;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyManager.getVerificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
 
-    public String generateToken(String username) {
+    public String generateToken(User user) {
         return Jwts.builder()
-                .setSubject(username)
+                .setHeaderParam(JwsHeader.KEY_ID, keyManager.getSigningKeyId())
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole() != null ? user.getRole().name() : null)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))//24 hour
-                .signWith(SECRET_KEY) // Use the generated key
+                .signWith(keyManager.getSigningKey())
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    /**
+     * Verifies the signature and expiry in a single parse and returns the claims.
+     * Throws a JwtException when the token is invalid or expired.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    public boolean validateToken(String token, String username) {
-        String extractedUsername = extractUsername(token);
-        return (username.equals(extractedUsername) && !isTokenExpired(token));
+    public String extractUsername(String token) {
+        return parseClaims(token).getSubject();
     }
 
-    private boolean isTokenExpired(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration()
-                .before(new Date());
+    public boolean validateToken(String token, String username) {
+        Claims claims = parseClaims(token);
+        return username.equals(claims.getSubject()) && !claims.getExpiration().before(new Date());
     }
-}
\ No newline at end of file
+}
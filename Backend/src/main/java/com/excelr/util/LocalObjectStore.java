@@ -0,0 +1,104 @@
+package com.excelr.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores objects as files directly under a root directory. Files are written
+ * to a temporary name and moved into place, so readers never see a partial
+ * object. {@link com.excelr.config.StorageConfig} serves the directory as
+ * static resources under the public base URL.
+ */
+public class LocalObjectStore implements ObjectStore {
+
+	private final Path root;
+	private final String baseUrl;
+
+	public LocalObjectStore(Path root, String baseUrl) throws IOException {
+		this.root = Files.createDirectories(root).toAbsolutePath().normalize();
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+	}
+
+	public Path getRoot() {
+		return root;
+	}
+
+	@Override
+	public void put(String key, Path file, String contentType) {
+		Path target = resolve(key);
+		try {
+			Path temp = Files.createTempFile(root, ".put-", ".part");
+			Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+			moveIntoPlace(temp, target);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error storing object " + key, e);
+		}
+	}
+
+	@Override
+	public void put(String key, InputStream content, long length, String contentType) {
+		Path target = resolve(key);
+		try {
+			Path temp = Files.createTempFile(root, ".put-", ".part");
+			Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+			moveIntoPlace(temp, target);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error storing object " + key, e);
+		}
+	}
+
+	@Override
+	public void put(String key, byte[] content, String contentType) {
+		Path target = resolve(key);
+		try {
+			Path temp = Files.createTempFile(root, ".put-", ".part");
+			Files.write(temp, content);
+			moveIntoPlace(temp, target);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error storing object " + key, e);
+		}
+	}
+
+	@Override
+	public void delete(String key) {
+		try {
+			Files.deleteIfExists(resolve(key));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error deleting object " + key, e);
+		}
+	}
+
+	@Override
+	public String urlFor(String key) {
+		return baseUrl + key;
+	}
+
+	@Override
+	public String keyOf(String url) {
+		if (url == null || !url.startsWith(baseUrl)) {
+			return null;
+		}
+		return url.substring(baseUrl.length());
+	}
+
+	private Path resolve(String key) {
+		Path path = root.resolve(key).normalize();
+		if (key.isEmpty() || !root.equals(path.getParent())) {
+			throw new IllegalArgumentException("Invalid object key: " + key);
+		}
+		return path;
+	}
+
+	private static void moveIntoPlace(Path temp, Path target) throws IOException {
+		try {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.excelr.util;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Flat key/value blob storage behind {@link S3Util}. Implementations are
+ * selected with {@code storage.type} (s3, local or memory) and must be safe
+ * for concurrent use from the upload workers.
+ */
+public interface ObjectStore {
+
+	void put(String key, Path file, String contentType);
+
+	void put(String key, InputStream content, long length, String contentType);
+
+	void put(String key, byte[] content, String contentType);
+
+	void delete(String key);
+
+	/**
+	 * Deletes several objects, returning the keys that could not be deleted.
+	 * Missing objects count as deleted.
+	 */
+	default Set<String> deleteAll(Collection<String> keys) {
+		Set<String> failed = new HashSet<>();
+		for (String key : keys) {
+			try {
+				delete(key);
+			} catch (RuntimeException e) {
+				failed.add(key);
+			}
+		}
+		return failed;
+	}
+
+	String urlFor(String key);
+
+	/**
+	 * Returns the key of an object previously returned by {@link #urlFor}, or
+	 * null when the URL does not point into this store.
+	 */
+	String keyOf(String url);
+}
@@ -0,0 +1,621 @@
+package com.excelr.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.excelr.model.ProductSearchSort;
+import com.excelr.model.Productdto;
+
+/**
+ * In-memory inverted index over product name, brand, description, subcategory
+ * and category names. Queries are tokenized the same way as documents and
+ * ranked with BM25; the last query token is matched as a prefix so results
+ * keep up with search-as-you-type.
+ * <p>
+ * Only ids and the price and rating sort keys are kept; callers load the
+ * products for a page themselves. Documents are spread over shards with their
+ * own locks and primitive posting lists, so an update blocks one shard and
+ * stock changes never touch the index at all. Prefixes shorter than
+ * {@value #MIN_PREFIX_LENGTH} characters match exactly, longer ones expand to
+ * the terms in the most documents within a posting budget; either cut marks
+ * the hits as truncated.
+ */
+@Component
+public class ProductSearchIndex {
+
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final long MAX_PREFIX_POSTINGS = 200_000;
+    private static final int SHARD_COUNT = 16;
+
+    private static final int NAME_BOOST = 3;
+    private static final int BRAND_BOOST = 2;
+    private static final int SUBCATEGORY_BOOST = 2;
+    private static final int CATEGORY_BOOST = 1;
+    private static final int DESCRIPTION_BOOST = 1;
+
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+    // Document frequency per term across all shards; sorted for prefix expansion
+    private final ConcurrentSkipListMap<String, Integer> documentFrequencies = new ConcurrentSkipListMap<>();
+    private final AtomicInteger documentCount = new AtomicInteger();
+    private final AtomicLong totalLength = new AtomicLong();
+
+    public ProductSearchIndex() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public void index(Productdto product, String categoryName) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        addField(termFrequencies, product.getName(), NAME_BOOST);
+        addField(termFrequencies, product.getBrand(), BRAND_BOOST);
+        addField(termFrequencies, product.getSubcategoryName(), SUBCATEGORY_BOOST);
+        addField(termFrequencies, categoryName, CATEGORY_BOOST);
+        addField(termFrequencies, product.getDescription(), DESCRIPTION_BOOST);
+        float rating = product.getRating() != null ? product.getRating() : Float.NaN;
+        shard(product.getId()).put(product.getId(), product.getPrice(), rating, termFrequencies);
+    }
+
+    public void remove(Long id) {
+        shard(id).remove(id);
+    }
+
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    public int size() {
+        return documentCount.get();
+    }
+
+    public Hits search(String query, ProductSearchSort sort, int offset, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new Hits(Collections.emptyList(), 0, false);
+        }
+        int documents = documentCount.get();
+        if (documents == 0) {
+            return new Hits(Collections.emptyList(), 0, false);
+        }
+        double averageLength = (double) totalLength.get() / documents;
+
+        boolean truncated = false;
+        List<List<Term>> terms = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Expansion expansion = i == tokens.size() - 1 ? expand(tokens.get(i), documents) : exact(tokens.get(i), documents);
+            if (expansion.terms().isEmpty()) {
+                return new Hits(Collections.emptyList(), 0, expansion.truncated());
+            }
+            truncated |= expansion.truncated();
+            terms.add(expansion.terms());
+        }
+        // Rarest token first keeps the candidate set small for the tokens after it
+        terms.sort(Comparator.comparingLong(ProductSearchIndex::postingCount));
+
+        Comparator<Hit> order = comparator(sort);
+        int window = offset + limit;
+        PriorityQueue<Hit> top = new PriorityQueue<>(order.reversed());
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.collect(terms, averageLength, order, window, top);
+        }
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(order);
+        List<Long> ids = new ArrayList<>(Math.max(0, ranked.size() - offset));
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(ranked.get(i).id());
+        }
+        return new Hits(ids, total, truncated);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private Expansion exact(String token, int documents) {
+        Integer df = documentFrequencies.get(token);
+        if (df == null) {
+            return new Expansion(List.of(), false);
+        }
+        return new Expansion(List.of(new Term(token, df, idf(df, documents), 1.0)), false);
+    }
+
+    // The exact term plus the expansions that occur in the most documents, within the posting budget
+    private Expansion expand(String prefix, int documents) {
+        ConcurrentNavigableMap<String, Integer> matches =
+                documentFrequencies.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (prefix.length() < MIN_PREFIX_LENGTH) {
+            Expansion exact = exact(prefix, documents);
+            return new Expansion(exact.terms(), matches.size() > exact.terms().size());
+        }
+        PriorityQueue<Map.Entry<String, Integer>> frequent =
+                new PriorityQueue<>(Map.Entry.<String, Integer>comparingByValue());
+        int candidates = 0;
+        for (Map.Entry<String, Integer> match : matches.entrySet()) {
+            int df = match.getValue();
+            if (match.getKey().equals(prefix)) {
+                continue;
+            }
+            candidates++;
+            if (frequent.size() < MAX_PREFIX_EXPANSIONS) {
+                frequent.offer(Map.entry(match.getKey(), df));
+            } else if (df > frequent.peek().getValue()) {
+                frequent.poll();
+                frequent.offer(Map.entry(match.getKey(), df));
+            }
+        }
+
+        List<Term> terms = new ArrayList<>(exact(prefix, documents).terms());
+        long postings = terms.isEmpty() ? 0 : terms.get(0).documentFrequency();
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(frequent);
+        ranked.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        boolean truncated = candidates > ranked.size();
+        for (Map.Entry<String, Integer> entry : ranked) {
+            if (postings + entry.getValue() > MAX_PREFIX_POSTINGS && !terms.isEmpty()) {
+                truncated = true;
+                break;
+            }
+            postings += entry.getValue();
+            terms.add(new Term(entry.getKey(), entry.getValue(), idf(entry.getValue(), documents), PREFIX_WEIGHT));
+        }
+        return new Expansion(terms, truncated);
+    }
+
+    private static double idf(int df, int documents) {
+        return Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+    }
+
+    private static long postingCount(List<Term> terms) {
+        long count = 0;
+        for (Term term : terms) {
+            count += term.documentFrequency();
+        }
+        return count;
+    }
+
+    private static Comparator<Hit> comparator(ProductSearchSort sort) {
+        Comparator<Hit> relevance = Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparingLong(Hit::id);
+        switch (sort) {
+        case PRICE_ASC:
+            return Comparator.comparingDouble(Hit::price).thenComparing(relevance);
+        case PRICE_DESC:
+            return Comparator.comparingDouble(Hit::price).reversed().thenComparing(relevance);
+        case RATING:
+            // Unrated products (NaN) go last
+            return Comparator.<Hit>comparingDouble(hit -> Float.isNaN(hit.rating()) ? Double.NEGATIVE_INFINITY : hit.rating())
+                    .reversed().thenComparing(relevance);
+        default:
+            return relevance;
+        }
+    }
+
+    private Shard shard(Long id) {
+        return shards[Math.floorMod(Long.hashCode(id) * 0x9E3779B9, SHARD_COUNT)];
+    }
+
+    private static void addField(Map<String, Integer> termFrequencies, String value, int boost) {
+        for (String token : tokenize(value)) {
+            termFrequencies.merge(token, boost, Integer::sum);
+        }
+    }
+
+    public record Hits(List<Long> ids, int total, boolean truncated) {
+    }
+
+    private record Hit(long id, double score, double price, float rating) {
+    }
+
+    private record Term(String text, int documentFrequency, double idf, double weight) {
+    }
+
+    private record Expansion(List<Term> terms, boolean truncated) {
+    }
+
+    /**
+     * Documents are addressed by a dense slot; freed slots are reused. Postings
+     * hold (slot, term frequency) pairs in two int arrays, unsorted.
+     */
+    private final class Shard {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Posting> postings = new HashMap<>();
+        private final LongIntMap slots = new LongIntMap();
+        private long[] ids = new long[16];
+        private int[] lengths = new int[16];
+        private double[] prices = new double[16];
+        private float[] ratings = new float[16];
+        private String[][] terms = new String[16][];
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+        private int slotCount;
+
+        void put(long id, double price, float rating, Map<String, Integer> termFrequencies) {
+            int length = 0;
+            for (int tf : termFrequencies.values()) {
+                length += tf;
+            }
+            lock.writeLock().lock();
+            try {
+                int slot = slots.get(id);
+                if (slot >= 0) {
+                    unlink(slot);
+                } else {
+                    slot = freeCount > 0 ? freeSlots[--freeCount] : slotCount++;
+                    ensureCapacity(slot + 1);
+                    slots.put(id, slot);
+                    documentCount.incrementAndGet();
+                }
+                String[] documentTerms = new String[termFrequencies.size()];
+                int i = 0;
+                for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                    Posting posting = postings.computeIfAbsent(entry.getKey(), Posting::new);
+                    posting.add(slot, entry.getValue());
+                    documentTerms[i++] = posting.term;
+                    documentFrequencies.merge(posting.term, 1, Integer::sum);
+                }
+                ids[slot] = id;
+                lengths[slot] = length;
+                prices[slot] = price;
+                ratings[slot] = rating;
+                terms[slot] = documentTerms;
+                totalLength.addAndGet(length);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long id) {
+            lock.writeLock().lock();
+            try {
+                int slot = slots.remove(id);
+                if (slot < 0) {
+                    return;
+                }
+                unlink(slot);
+                terms[slot] = null;
+                if (freeCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+                }
+                freeSlots[freeCount++] = slot;
+                documentCount.decrementAndGet();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void clear() {
+            lock.writeLock().lock();
+            try {
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if (terms[slot] != null) {
+                        unlink(slot);
+                        terms[slot] = null;
+                        documentCount.decrementAndGet();
+                    }
+                }
+                postings.clear();
+                slots.clear();
+                slotCount = 0;
+                freeCount = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Scores this shard's matches into the shared top-k queue and returns how
+         * many documents matched every token.
+         */
+        int collect(List<List<Term>> queryTerms, double averageLength, Comparator<Hit> order, int window,
+                PriorityQueue<Hit> top) {
+            lock.readLock().lock();
+            try {
+                SlotScores scores = null;
+                for (List<Term> token : queryTerms) {
+                    SlotScores tokenScores = new SlotScores(scores != null ? scores.size() : 16);
+                    for (Term term : token) {
+                        Posting posting = postings.get(term.text());
+                        if (posting == null) {
+                            continue;
+                        }
+                        for (int i = 0; i < posting.size; i++) {
+                            int slot = posting.slots[i];
+                            if (scores != null && !scores.contains(slot)) {
+                                continue;
+                            }
+                            int tf = posting.frequencies[i];
+                            double score = term.weight() * term.idf() * tf * (K1 + 1)
+                                    / (tf + K1 * (1 - B + B * lengths[slot] / averageLength));
+                            tokenScores.max(slot, score);
+                        }
+                    }
+                    if (scores != null) {
+                        tokenScores.addAll(scores);
+                    }
+                    scores = tokenScores;
+                    if (scores.size() == 0) {
+                        return 0;
+                    }
+                }
+                scores.forEach((slot, score) -> {
+                    Hit hit = new Hit(ids[slot], score, prices[slot], ratings[slot]);
+                    if (top.size() < window) {
+                        top.offer(hit);
+                    } else if (order.compare(hit, top.peek()) < 0) {
+                        top.poll();
+                        top.offer(hit);
+                    }
+                });
+                return scores.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void unlink(int slot) {
+            for (String term : terms[slot]) {
+                Posting posting = postings.get(term);
+                posting.remove(slot);
+                if (posting.size == 0) {
+                    postings.remove(term);
+                }
+                documentFrequencies.computeIfPresent(term, (t, df) -> df == 1 ? null : df - 1);
+            }
+            totalLength.addAndGet(-lengths[slot]);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int grown = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, grown);
+            lengths = Arrays.copyOf(lengths, grown);
+            prices = Arrays.copyOf(prices, grown);
+            ratings = Arrays.copyOf(ratings, grown);
+            terms = Arrays.copyOf(terms, grown);
+        }
+    }
+
+    private static final class Posting {
+
+        final String term;
+        int[] slots = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        Posting(String term) {
+            this.term = term;
+        }
+
+        void add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Open-addressing slot to score table; slots are never negative. */
+    private static final class SlotScores {
+
+        private int[] keys;
+        private double[] values;
+        private int size;
+
+        SlotScores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new double[capacity];
+            Arrays.fill(keys, -1);
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int slot) {
+            return keys[find(slot)] == slot;
+        }
+
+        void max(int slot, double value) {
+            int index = find(slot);
+            if (keys[index] == slot) {
+                values[index] = Math.max(values[index], value);
+                return;
+            }
+            keys[index] = slot;
+            values[index] = value;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        // Adds the earlier tokens' scores to the slots this token matched
+        void addAll(SlotScores previous) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] >= 0) {
+                    values[i] += previous.values[previous.find(keys[i])];
+                }
+            }
+        }
+
+        void forEach(SlotConsumer consumer) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] >= 0) {
+                    consumer.accept(keys[i], values[i]);
+                }
+            }
+        }
+
+        private int find(int slot) {
+            int mask = keys.length - 1;
+            int index = (slot * 0x9E3779B9) & mask;
+            while (keys[index] >= 0 && keys[index] != slot) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            double[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new double[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] >= 0) {
+                    int index = find(oldKeys[i]);
+                    keys[index] = oldKeys[i];
+                    values[index] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SlotConsumer {
+        void accept(int slot, double score);
+    }
+
+    /** Open-addressing product id to slot map with backward-shift deletion. */
+    private static final class LongIntMap {
+
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        int get(long key) {
+            int index = find(key);
+            return used[index] ? values[index] : -1;
+        }
+
+        void put(long key, int value) {
+            int index = find(key);
+            if (!used[index]) {
+                used[index] = true;
+                keys[index] = key;
+                if (++size * 2 > keys.length) {
+                    values[index] = value;
+                    grow();
+                    return;
+                }
+            }
+            values[index] = value;
+        }
+
+        int remove(long key) {
+            int index = find(key);
+            if (!used[index]) {
+                return -1;
+            }
+            int value = values[index];
+            int mask = keys.length - 1;
+            int hole = index;
+            int next = (hole + 1) & mask;
+            while (used[next]) {
+                int home = hash(keys[next]) & mask;
+                // Move the entry back if the hole lies on its probe path
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            used[hole] = false;
+            size--;
+            return value;
+        }
+
+        void clear() {
+            keys = new long[16];
+            values = new int[16];
+            used = new boolean[16];
+            size = 0;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+            while (used[index] && keys[index] != key) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int index = find(oldKeys[i]);
+                    used[index] = true;
+                    keys[index] = oldKeys[i];
+                    values[index] = oldValues[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.excelr.util;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+public class S3ObjectStore implements ObjectStore {
+
+	// Upper bound imposed by the DeleteObjects API
+	public static final int MAX_KEYS_PER_DELETE = 1000;
+
+	private final S3Client s3Client;
+	private final String bucketName;
+
+	public S3ObjectStore(S3Client s3Client, String bucketName) {
+		this.s3Client = s3Client;
+		this.bucketName = bucketName;
+	}
+
+	@Override
+	public void put(String key, Path file, String contentType) {
+		s3Client.putObject(request(key, contentType), RequestBody.fromFile(file));
+	}
+
+	@Override
+	public void put(String key, InputStream content, long length, String contentType) {
+		s3Client.putObject(request(key, contentType), RequestBody.fromInputStream(content, length));
+	}
+
+	@Override
+	public void put(String key, byte[] content, String contentType) {
+		s3Client.putObject(request(key, contentType), RequestBody.fromBytes(content));
+	}
+
+	@Override
+	public void delete(String key) {
+		s3Client.deleteObject(DeleteObjectRequest.builder()
+				.bucket(bucketName)
+				.key(key)
+				.build());
+	}
+
+	@Override
+	public Set<String> deleteAll(Collection<String> keys) {
+		if (keys.size() > MAX_KEYS_PER_DELETE) {
+			throw new IllegalArgumentException("At most " + MAX_KEYS_PER_DELETE + " keys can be deleted at once");
+		}
+		if (keys.isEmpty()) {
+			return Set.of();
+		}
+		DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+				.bucket(bucketName)
+				.delete(Delete.builder()
+						.objects(keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+						.quiet(true)
+						.build())
+				.build());
+		return response.errors().stream().map(S3Error::key).collect(Collectors.toSet());
+	}
+
+	@Override
+	public String urlFor(String key) {
+		return String.format("https://%s.s3.amazonaws.com/%s", bucketName, key);
+	}
+
+	@Override
+	public String keyOf(String url) {
+		if (url == null || !url.contains(bucketName)) {
+			return null;
+		}
+		return url.substring(url.lastIndexOf("/") + 1);
+	}
+
+	private PutObjectRequest request(String key, String contentType) {
+		return PutObjectRequest.builder()
+				.bucket(bucketName)
+				.key(key)
+				.contentType(contentType)
+				.build();
+	}
+}
@@ -1,30 +1,47 @@
 package com.excelr.util;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import com.excelr.model.ImageVariants;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.StringJoiner;
 import java.util.UUID;
 
 @Service
 public class S3Util {
     
     @Autowired
-    private S3Client s3Client;
+    private ObjectStore objectStore;
     
-    @Value("${aws.s3.bucket.name}")
-    private String bucketName;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
     
     // Maximum file size: 5MB
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
@@ -33,70 +50,141 @@ public class S3Util {
             ".jpg", ".jpeg", ".png"
     );
     
+    private static final List<String> ALLOWED_FORMATS = Arrays.asList("jpeg", "png");
+    
+    // Maximum width or height accepted from the image header
+    private static final int MAX_DIMENSION = 8000;
+    
+    private static final float VARIANT_JPEG_QUALITY = 0.8f;
+    
     public String uploadImage(MultipartFile file) {
         validateFile(file);
         
         try {
-            String originalFilename = file.getOriginalFilename();
-            String sanitizedFilename = originalFilename.replace(" ", "");
-            String fileName = UUID.randomUUID() + "_" + sanitizedFilename;
+            String fileName = newObjectKey(file);
             
-            // Determine content type
-            String contentType = file.getContentType();
-            if (contentType == null) {
-                contentType = originalFilename.toLowerCase().endsWith(".png") ? "image/png" : "image/jpeg";
+            try (InputStream content = file.getInputStream()) {
+                store("upload", () -> objectStore.put(fileName, content, file.getSize(), contentTypeOf(file)));
             }
             
-            // Upload to S3
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(fileName)
-                .contentType(contentType)
-                .build();
-                
-            s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
-            
-            // Generate and return the S3 URL
-            return String.format("https://%s.s3.amazonaws.com/%s", bucketName, fileName);
+            // Generate and return the public URL
+            return urlFor(fileName);
             
         } catch (IOException e) {
-            throw new RuntimeException("Error uploading file to S3: " + e.getMessage());
+            throw new RuntimeException("Error uploading file to storage: " + e.getMessage());
         }
     }
     
-    public void deleteImage(String imageUrl) {
-        if (imageUrl == null || !imageUrl.contains(bucketName)) {
-            return;
-        }
-        
+    public void putObject(String key, Path file, String contentType) {
+        store("put", () -> objectStore.put(key, file, contentType));
+    }
+    
+    /**
+     * Generates the resized copies listed in {@link ImageVariants#WIDTHS} for an
+     * image already stored under {@code key} and uploads them next to it. Widths
+     * at or above the original are skipped. Returns the generated widths as a
+     * comma-separated list, or an empty string when none apply.
+     */
+    public String generateVariants(String key, Path original, String contentType) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            String key = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
-            
-            DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-                
-            s3Client.deleteObject(deleteObjectRequest);
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Error deleting file from S3: " + e.getMessage());
+            return resizeAndStore(key, original, contentType);
+        } finally {
+            sample.stop(meterRegistry.timer("image.variants"));
         }
     }
     
-    public String updateImage(String existingImageUrl, MultipartFile newImage) {
-        validateFile(newImage);
-        
-        // Delete existing image if present
-        if (existingImageUrl != null) {
-            deleteImage(existingImageUrl);
+    private String resizeAndStore(String key, Path original, String contentType) {
+        boolean png = "image/png".equals(contentType);
+        BufferedImage image;
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("Invalid image file");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int largest = 0;
+                for (int width : ImageVariants.WIDTHS) {
+                    if (width < reader.getWidth(0)) {
+                        largest = Math.max(largest, width);
+                    }
+                }
+                if (largest == 0) {
+                    return "";
+                }
+                // Let the decoder drop pixels we would throw away anyway, keeping
+                // at least twice the largest variant width for a clean downscale
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, reader.getWidth(0) / (largest * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading image for variants: " + e.getMessage());
         }
         
-        // Upload new image
-        return uploadImage(newImage);
+        int[] widths = ImageVariants.WIDTHS.clone();
+        Arrays.sort(widths);
+        boolean[] generated = new boolean[widths.length];
+        // Largest first, so each variant is scaled from the previous one
+        for (int i = widths.length - 1; i >= 0; i--) {
+            if (widths[i] >= image.getWidth()) {
+                continue;
+            }
+            image = scaleToWidth(image, widths[i], png);
+            byte[] bytes = encode(image, png);
+            String variantKey = ImageVariants.key(key, widths[i]);
+            store("variant", () -> objectStore.put(variantKey, bytes, png ? "image/png" : "image/jpeg"));
+            generated[i] = true;
+        }
+        StringJoiner result = new StringJoiner(",");
+        for (int i = 0; i < widths.length; i++) {
+            if (generated[i]) {
+                result.add(String.valueOf(widths[i]));
+            }
+        }
+        return result.toString();
+    }
+    
+    public String newObjectKey(MultipartFile file) {
+        String sanitizedFilename = file.getOriginalFilename().replace(" ", "");
+        return UUID.randomUUID() + "_" + sanitizedFilename;
     }
     
-    private void validateFile(MultipartFile file) {
+    public String contentTypeOf(MultipartFile file) {
+        String contentType = file.getContentType();
+        if (contentType == null) {
+            contentType = file.getOriginalFilename().toLowerCase().endsWith(".png") ? "image/png" : "image/jpeg";
+        }
+        return contentType;
+    }
+    
+    public String urlFor(String key) {
+        return objectStore.urlFor(key);
+    }
+    
+    /**
+     * Lists the storage keys behind an image URL: the original and all of its
+     * possible variants. Returns an empty list for URLs outside the store.
+     */
+    public List<String> objectKeysOf(String imageUrl) {
+        String key = objectStore.keyOf(imageUrl);
+        if (key == null) {
+            return List.of();
+        }
+        List<String> keys = new ArrayList<>(ImageVariants.WIDTHS.length + 1);
+        keys.add(key);
+        for (int width : ImageVariants.WIDTHS) {
+            keys.add(ImageVariants.key(key, width));
+        }
+        return keys;
+    }
+    
+    public void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File cannot be empty");
         }
@@ -111,17 +199,95 @@ public class S3Util {
             throw new IllegalArgumentException("Unsupported file type. Allowed types: jpg, jpeg, png");
         }
         
-        // Validate that it's actually an image
-        try {
-            BufferedImage bufferedImage = ImageIO.read(file.getInputStream());
-            if (bufferedImage == null) {
+        // Validate that it's actually an image by reading only its header
+        try (InputStream in = file.getInputStream();
+             ImageInputStream imageStream = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
                 throw new IllegalArgumentException("Invalid image file");
             }
+            ImageReader reader = readers.next();
+            try {
+                String format = reader.getFormatName().toLowerCase();
+                if (!ALLOWED_FORMATS.contains(format)) {
+                    throw new IllegalArgumentException("Unsupported file type. Allowed types: jpg, jpeg, png");
+                }
+                reader.setInput(imageStream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || width > MAX_DIMENSION || height > MAX_DIMENSION) {
+                    throw new IllegalArgumentException("Image dimensions must be between 1 and " + MAX_DIMENSION + " pixels");
+                }
+            } finally {
+                reader.dispose();
+            }
         } catch (IOException e) {
             throw new IllegalArgumentException("Error processing image file");
         }
     }
     
+    // Halves the image with bilinear filtering until it is within 2x of the
+    // target, which keeps quality close to bicubic at a fraction of the cost
+    private static BufferedImage scaleToWidth(BufferedImage source, int targetWidth, boolean keepAlpha) {
+        int type = keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+            BufferedImage scaled = new BufferedImage(width, height, type);
+            Graphics2D g = scaled.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = scaled;
+        } while (width > targetWidth);
+        return current;
+    }
+    
+    private static byte[] encode(BufferedImage image, boolean png) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if (png) {
+                ImageIO.write(image, "png", out);
+                return out.toByteArray();
+            }
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream imageOut = new MemoryCacheImageOutputStream(out)) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(VARIANT_JPEG_QUALITY);
+                writer.setOutput(imageOut);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Error encoding image variant: " + e.getMessage());
+        }
+    }
+    
+    // Times one storage call as storage.requests{operation,outcome} and counts failures by exception type
+    private void store(String operation, Runnable call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            outcome = "error";
+            meterRegistry.counter("storage.errors", "operation", operation,
+                    "exception", e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("storage.requests", "operation", operation, "outcome", outcome));
+        }
+    }
+    
     private boolean isValidFileType(String filename) {
         return ALLOWED_EXTENSIONS.stream()
                 .anyMatch(ext -> filename.toLowerCase().endsWith(ext));
@@ -0,0 +1,200 @@
+package com.excelr.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Read-only shared strings table for streaming XLSX reads that spills the
+ * strings to a temp file while parsing. Only one offset per string stays on
+ * the heap, where POI's ReadOnlySharedStringsTable keeps every string, so a
+ * workbook with millions of distinct cell values does not have to fit in
+ * memory. Formatting and phonetic runs are dropped; cells get the plain text.
+ */
+public class TempFileSharedStrings extends DefaultHandler implements SharedStrings, Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+    // offsets[i] is where string i starts; one extra entry marks the end of the last string
+    private long[] offsets = new long[1024];
+    private int uniqueCount;
+    private int count = -1;
+
+    private OutputStream out;
+    private long written;
+    private final StringBuilder text = new StringBuilder();
+    private boolean inText;
+    private boolean inPhoneticRun;
+
+    /**
+     * Reads the shared strings part of the package, if it has one.
+     */
+    public static TempFileSharedStrings open(OPCPackage pkg) throws IOException, SAXException {
+        List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (parts.isEmpty()) {
+            return new TempFileSharedStrings(null);
+        }
+        try (InputStream in = parts.get(0).getInputStream()) {
+            return new TempFileSharedStrings(in);
+        }
+    }
+
+    /**
+     * Parses a sharedStrings.xml stream; null gives an empty table.
+     */
+    public TempFileSharedStrings(InputStream sharedStringsXml) throws IOException, SAXException {
+        file = Files.createTempFile("shared-strings-", ".txt");
+        try {
+            try (OutputStream spill = new BufferedOutputStream(Files.newOutputStream(file))) {
+                out = spill;
+                if (sharedStringsXml != null) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(this);
+                    parser.parse(new InputSource(sharedStringsXml));
+                }
+            } finally {
+                out = null;
+            }
+            offsets[uniqueCount] = written;
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException | SAXException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        } catch (ParserConfigurationException e) {
+            Files.deleteIfExists(file);
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public RichTextString getItemAt(int idx) {
+        if (idx < 0 || idx >= uniqueCount) {
+            throw new IndexOutOfBoundsException("No shared string at index " + idx);
+        }
+        long start = offsets[idx];
+        ByteBuffer buffer = ByteBuffer.allocate((int) (offsets[idx + 1] - start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new EOFException("Shared strings file ended early");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading shared string " + idx, e);
+        }
+        return new XSSFRichTextString(new String(buffer.array(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int getCount() {
+        return count >= 0 ? count : uniqueCount;
+    }
+
+    @Override
+    public int getUniqueCount() {
+        return uniqueCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        if (!XSSFRelation.NS_SPREADSHEETML.equals(uri)) {
+            return;
+        }
+        switch (localName) {
+        case "sst":
+            String total = attributes.getValue("count");
+            if (total != null) {
+                count = Integer.parseInt(total);
+            }
+            break;
+        case "si":
+            text.setLength(0);
+            break;
+        case "t":
+            inText = true;
+            break;
+        case "rPh":
+            inPhoneticRun = true;
+            break;
+        default:
+            break;
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (!XSSFRelation.NS_SPREADSHEETML.equals(uri)) {
+            return;
+        }
+        switch (localName) {
+        case "si":
+            append();
+            break;
+        case "t":
+            inText = false;
+            break;
+        case "rPh":
+            inPhoneticRun = false;
+            break;
+        default:
+            break;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (inText && !inPhoneticRun) {
+            text.append(ch, start, length);
+        }
+    }
+
+    private void append() throws SAXException {
+        if (uniqueCount + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[uniqueCount++] = written;
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+        written += bytes.length;
+    }
+}
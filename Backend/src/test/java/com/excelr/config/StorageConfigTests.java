@@ -0,0 +1,79 @@
+package com.excelr.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.excelr.util.InMemoryObjectStore;
+import com.excelr.util.LocalObjectStore;
+
+class StorageConfigTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void localStoreServesObjectsThroughTomcat() throws Exception {
+		LocalObjectStore store = new LocalObjectStore(tempDir, "http://localhost/media");
+		store.put("photo.png", "png-bytes".getBytes(StandardCharsets.UTF_8), "image/png");
+
+		StorageConfig.LocalStorageServing serving = new StorageConfig.LocalStorageServing();
+		ReflectionTestUtils.setField(serving, "urlPath", "/media");
+		TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+		serving.localObjectStoreResources(store).customize(factory);
+		WebServer server = factory.getWebServer(serving.localObjectStoreServlet());
+		server.start();
+		try {
+			HttpClient client = HttpClient.newHttpClient();
+			String base = "http://localhost:" + server.getPort() + "/media/";
+
+			HttpResponse<String> found = client.send(HttpRequest.newBuilder(URI.create(base + "photo.png")).build(),
+					HttpResponse.BodyHandlers.ofString());
+			assertThat(found.statusCode()).isEqualTo(200);
+			assertThat(found.body()).isEqualTo("png-bytes");
+			assertThat(found.headers().firstValue("ETag")).isPresent();
+
+			store.delete("photo.png");
+			HttpResponse<String> missing = client.send(HttpRequest.newBuilder(URI.create(base + "other.png")).build(),
+					HttpResponse.BodyHandlers.ofString());
+			assertThat(missing.statusCode()).isEqualTo(404);
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	void localStoreMapsUrlsToKeysAndRejectsPaths() throws Exception {
+		LocalObjectStore store = new LocalObjectStore(tempDir, "http://localhost:8081/media");
+
+		assertThat(store.urlFor("a.png")).isEqualTo("http://localhost:8081/media/a.png");
+		assertThat(store.keyOf("http://localhost:8081/media/a.png")).isEqualTo("a.png");
+		assertThat(store.keyOf("https://bucket.s3.amazonaws.com/a.png")).isNull();
+		assertThatThrownBy(() -> store.put("../escape.png", new byte[1], "image/png"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void inMemoryStoreKeepsCopies() {
+		InMemoryObjectStore store = new InMemoryObjectStore("http://localhost:8081/media/");
+		byte[] content = {1, 2, 3};
+		store.put("a.png", content, "image/png");
+		content[0] = 9;
+
+		assertThat(store.get("a.png")).containsExactly(1, 2, 3);
+		store.delete(store.keyOf(store.urlFor("a.png")));
+		assertThat(store.size()).isZero();
+	}
+}
@@ -0,0 +1,162 @@
+package com.excelr.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.excelr.model.Category;
+import com.excelr.model.Product;
+import com.excelr.model.ProductSortKey;
+import com.excelr.model.Productdto;
+import com.excelr.model.Subcategory;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@DataJpaTest(properties = {
+		"spring.sql.init.mode=never",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductRepositoryTests {
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private Long phonesId;
+
+	@BeforeEach
+	void setUp() {
+		Category category = new Category();
+		category.setName("Electronics");
+		entityManager.persist(category);
+
+		for (int s = 0; s < 5; s++) {
+			Subcategory subcategory = new Subcategory();
+			subcategory.setName("Subcategory " + s);
+			subcategory.setCategory(category);
+			entityManager.persist(subcategory);
+			if (s == 0) {
+				phonesId = subcategory.getId();
+			}
+			for (int p = 0; p < 10; p++) {
+				Product product = new Product();
+				product.setName("Product " + s + "-" + p);
+				product.setPrice(100 + p);
+				product.setQuantity(5);
+				product.setSubcategory(subcategory);
+				entityManager.persist(product);
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void productPageRunsOneSelectAndOneCount() {
+		Page<Productdto> page = productRepository.findProductPage(PageRequest.of(1, 20, Sort.by("price")));
+
+		assertThat(page.getContent()).hasSize(20);
+		assertThat(page.getTotalElements()).isEqualTo(50);
+		assertThat(page.getContent()).allSatisfy(product -> assertThat(product.getSubcategoryName()).isNotNull());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void subcategoryPageRunsOneSelectAndOneCount() {
+		Page<Productdto> page = productRepository.findProductPageBySubcategoryId(phonesId, PageRequest.of(0, 4));
+
+		assertThat(page.getContent()).hasSize(4);
+		assertThat(page.getTotalElements()).isEqualTo(10);
+		assertThat(page.getContent()).allSatisfy(product ->
+				assertThat(product.getSubcategoryName()).isEqualTo("Subcategory 0"));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void keysetSlicesWalkEveryProductOnceInPriceOrder() {
+		List<Productdto> seen = new ArrayList<>();
+		Object lastValue = null;
+		Long lastId = null;
+		List<Productdto> slice;
+		do {
+			slice = productRepository.findProductsAfter(null, ProductSortKey.PRICE, true, lastValue, lastId, 7);
+			seen.addAll(slice);
+			if (!slice.isEmpty()) {
+				Productdto last = slice.get(slice.size() - 1);
+				lastValue = last.getPrice();
+				lastId = last.getId();
+			}
+		} while (slice.size() == 7);
+
+		assertThat(seen).hasSize(50);
+		assertThat(seen).extracting(Productdto::getId).doesNotHaveDuplicates();
+		assertThat(seen).extracting(Productdto::getPrice).isSortedAccordingTo(Comparator.reverseOrder());
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void ratingSlicesPutMissingRatingsLowestInBothDirections() {
+		List<Product> products = productRepository.findAll(Sort.by("id"));
+		for (int i = 0; i < products.size(); i++) {
+			products.get(i).setRating(i % 3 == 0 ? null : (float) (i % 4));
+		}
+		productRepository.saveAll(products);
+		entityManager.flush();
+		entityManager.clear();
+
+		Comparator<Float> nullsLow = Comparator.nullsFirst(Comparator.naturalOrder());
+		for (Long subcategoryId : new Long[] {null, phonesId}) {
+			List<Productdto> ascending = walkRatings(subcategoryId, false);
+			List<Productdto> descending = walkRatings(subcategoryId, true);
+
+			assertThat(ascending).hasSize(subcategoryId == null ? 50 : 10);
+			assertThat(ascending).extracting(Productdto::getId).doesNotHaveDuplicates();
+			assertThat(ascending).extracting(Productdto::getRating).isSortedAccordingTo(nullsLow);
+			assertThat(descending).extracting(Productdto::getId)
+					.containsExactlyInAnyOrderElementsOf(ascending.stream().map(Productdto::getId).toList());
+			assertThat(descending).extracting(Productdto::getRating).isSortedAccordingTo(nullsLow.reversed());
+		}
+	}
+
+	private List<Productdto> walkRatings(Long subcategoryId, boolean descending) {
+		List<Productdto> seen = new ArrayList<>();
+		Float lastValue = null;
+		Long lastId = null;
+		List<Productdto> slice;
+		do {
+			slice = productRepository.findProductsAfter(subcategoryId, ProductSortKey.RATING, descending, lastValue,
+					lastId, 4);
+			seen.addAll(slice);
+			if (!slice.isEmpty()) {
+				lastValue = slice.get(slice.size() - 1).getRating();
+				lastId = slice.get(slice.size() - 1).getId();
+			}
+		} while (slice.size() == 4);
+		return seen;
+	}
+}
@@ -0,0 +1,173 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.excelr.model.CartItem;
+import com.excelr.model.CartItemStatus;
+import com.excelr.model.CartLine;
+import com.excelr.model.CartView;
+import com.excelr.model.Product;
+import com.excelr.model.Subcategory;
+import com.excelr.repository.ProductRepository;
+import com.excelr.repository.SavedCartRepository;
+import com.excelr.support.CatalogFixtures;
+import com.excelr.support.JpaSliceTest;
+
+@JpaSliceTest
+class CartServiceTests {
+
+	private static final Integer USER = 7;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private SavedCartRepository savedCartRepository;
+
+	@Autowired
+	private CatalogFixtures fixtures;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private CartService cartService;
+	private Product pixel;
+	private Product galaxy;
+
+	@BeforeEach
+	void setUp() {
+		Subcategory phones = fixtures.subcategory("Electronics", "Mobile Phones");
+		pixel = fixtures.product(phones, "Pixel 9", 799.99, 10);
+		galaxy = fixtures.product(phones, "Galaxy S24", 899.10, 2);
+		entityManager.flush();
+
+		cartService = newCartService();
+	}
+
+	@Test
+	void pricesEveryLineFromTheCatalogAndExcludesUnavailableOnes() {
+		cartService.addItem(USER, pixel.getId(), 2);
+		cartService.addItem(USER, pixel.getId(), 1);
+		cartService.addItem(USER, galaxy.getId(), 1);
+		cartService.addItem(USER, 999999L, 1);
+
+		CartView view = cartService.view(USER);
+
+		assertThat(view.getItems()).extracting(CartItem::getStatus).containsExactly(
+				CartItemStatus.OK, CartItemStatus.OK, CartItemStatus.NOT_FOUND);
+		assertThat(view.getTotal()).isEqualTo(3299.07);
+		assertThat(view.getItemCount()).isEqualTo(4);
+		assertThat(view.isCheckoutReady()).isFalse();
+
+		cartService.removeItem(USER, 999999L);
+		pixel.setPrice(500);
+		galaxy.setQuantity(0);
+		entityManager.flush();
+
+		view = cartService.view(USER);
+		assertThat(view.getItems()).extracting(CartItem::getStatus).containsExactly(
+				CartItemStatus.OK, CartItemStatus.OUT_OF_STOCK);
+		assertThat(view.getTotal()).isEqualTo(1500.0);
+
+		cartService.setQuantity(USER, galaxy.getId(), 0);
+		assertThat(cartService.view(USER).isCheckoutReady()).isTrue();
+	}
+
+	@Test
+	void writesChangedCartsBehindAndReloadsThemInAFreshInstance() {
+		cartService.replace(USER, List.of(new CartLine(galaxy.getId(), 1), new CartLine(pixel.getId(), 3)));
+		assertThat(savedCartRepository.findById(USER)).isEmpty();
+
+		cartService.flush();
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(newCartService().lines(USER)).containsExactly(
+				new CartLine(galaxy.getId(), 1), new CartLine(pixel.getId(), 3));
+
+		cartService.clear(USER);
+		cartService.flush();
+		entityManager.flush();
+		assertThat(savedCartRepository.findById(USER)).isEmpty();
+	}
+
+	@Test
+	void keepsCartsDirtyUntilTheyAreWritten() {
+		SavedCartRepository failing = mock(SavedCartRepository.class);
+		when(failing.save(any())).thenThrow(new DataAccessResourceFailureException("Database is down"))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+		CartService service = newCartService(failing);
+		service.addItem(USER, pixel.getId(), 1);
+
+		service.flush();
+		service.flush();
+		service.flush();
+
+		verify(failing, times(2)).save(any());
+	}
+
+	@Test
+	void dropsACartThatAnotherReplicaSavedSinceItWasLoaded() {
+		cartService.addItem(USER, pixel.getId(), 1);
+		cartService.flush();
+		entityManager.flush();
+		entityManager.clear();
+
+		CartService other = newCartService();
+		other.addItem(USER, galaxy.getId(), 1);
+		other.flush();
+		entityManager.flush();
+		entityManager.clear();
+
+		// This replica's copy predates the other write, so it is reloaded rather than saved over it
+		cartService.setQuantity(USER, pixel.getId(), 5);
+		cartService.flush();
+		entityManager.clear();
+
+		List<CartLine> merged = List.of(new CartLine(pixel.getId(), 1), new CartLine(galaxy.getId(), 1));
+		assertThat(cartService.lines(USER)).containsExactlyElementsOf(merged);
+		assertThat(savedCartRepository.findById(USER).orElseThrow().getLines()).containsExactlyElementsOf(merged);
+	}
+
+	@Test
+	void rejectsInvalidQuantitiesAndOversizedCarts() {
+		CartService oneLine = newCartService(savedCartRepository, 1);
+		oneLine.addItem(USER, pixel.getId(), 1);
+
+		assertThatThrownBy(() -> oneLine.addItem(USER, galaxy.getId(), 1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> oneLine.addItem(USER, pixel.getId(), -1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> oneLine.addItem(USER, pixel.getId(), 100))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(oneLine.lines(USER)).containsExactly(new CartLine(pixel.getId(), 1));
+	}
+
+	private CartService newCartService() {
+		return newCartService(savedCartRepository);
+	}
+
+	private CartService newCartService(SavedCartRepository repository) {
+		return newCartService(repository, 100);
+	}
+
+	private CartService newCartService(SavedCartRepository repository, int maxLines) {
+		CartService service = new CartService(productRepository, repository, 120, 1000, maxLines, 100, true);
+		service.init();
+		return service;
+	}
+}
@@ -0,0 +1,99 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.excelr.model.Category;
+import com.excelr.model.Product;
+import com.excelr.repository.CategoryRepository;
+import com.excelr.repository.ProductRepository;
+import com.excelr.support.CommittedJpaSliceTest;
+
+// Writers insert on their own connections, so the test reads committed rows
+@CommittedJpaSliceTest
+class CatalogGeneratorTests {
+
+	@TempDir
+	Path dir;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Test
+	void sameSeedGivesTheSameCatalogWhateverTheWriterCount() throws Exception {
+		CatalogGenerator oneWriter = generator("csv", 1, 7);
+		ReflectionTestUtils.setField(oneWriter, "csvDir", dir.resolve("a").toString());
+		oneWriter.generate();
+		CatalogGenerator sameSeed = generator("csv", 4, 3);
+		ReflectionTestUtils.setField(sameSeed, "csvDir", dir.resolve("b").toString());
+		sameSeed.generate();
+
+		for (String table : List.of("category", "subcategory", "product", "user")) {
+			assertThat(Files.readString(dir.resolve("b").resolve(table + ".csv")))
+					.isEqualTo(Files.readString(dir.resolve("a").resolve(table + ".csv")));
+		}
+		List<String> products = Files.readAllLines(dir.resolve("a").resolve("product.csv"));
+		assertThat(products).hasSize(501);
+		assertThat(products.get(0)).isEqualTo("id,name,brand,description,price,rating,quantity,subcategory_id");
+		assertThat(Files.readString(dir.resolve("a").resolve("load.sql")))
+				.contains("LOAD DATA LOCAL INFILE", "INTO TABLE `product`");
+	}
+
+	@Test
+	void insertsWithBatchedJdbcAndAppendsOnTheNextRun() {
+		long products = productRepository.count();
+		long categories = categoryRepository.count();
+
+		generator("jdbc", 4, 64).generate();
+
+		assertThat(productRepository.count()).isEqualTo(products + 500);
+		assertThat(categoryRepository.count()).isEqualTo(categories + 3);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM subcategory s JOIN category c "
+				+ "ON s.category_id = c.id", Long.class)).isGreaterThanOrEqualTo(12);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product p LEFT JOIN subcategory s "
+				+ "ON p.subcategory_id = s.id WHERE s.id IS NULL", Long.class)).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT brand) FROM product", Long.class))
+				.isGreaterThan(5);
+
+		// Identity columns continue after the generated ids
+		Category category = new Category();
+		category.setName("Manual");
+		assertThat(categoryRepository.save(category).getId()).isGreaterThan(categories + 3);
+
+		generator("jdbc", 2, 100).generate();
+		assertThat(productRepository.count()).isEqualTo(products + 1000);
+		Product last = productRepository.findAll().stream()
+				.max((a, b) -> Long.compare(a.getId(), b.getId())).orElseThrow();
+		assertThat(last.getName()).isNotBlank();
+	}
+
+	private CatalogGenerator generator(String output, int writers, int batchSize) {
+		CatalogGenerator generator = new CatalogGenerator(jdbcTemplate);
+		ReflectionTestUtils.setField(generator, "seed", 7L);
+		ReflectionTestUtils.setField(generator, "categories", 3);
+		ReflectionTestUtils.setField(generator, "subcategoriesPerCategory", 4);
+		ReflectionTestUtils.setField(generator, "products", 500L);
+		ReflectionTestUtils.setField(generator, "users", 20);
+		ReflectionTestUtils.setField(generator, "brands", 50);
+		ReflectionTestUtils.setField(generator, "stock", 0);
+		ReflectionTestUtils.setField(generator, "output", output);
+		ReflectionTestUtils.setField(generator, "batchSize", batchSize);
+		ReflectionTestUtils.setField(generator, "writers", writers);
+		return generator;
+	}
+}
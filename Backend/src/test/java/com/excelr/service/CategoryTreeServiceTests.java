@@ -0,0 +1,81 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.excelr.model.CategoryTreeNode;
+import com.excelr.model.Subcategory;
+import com.excelr.model.SubcategoryTreeNode;
+import com.excelr.support.CatalogFixtures;
+import com.excelr.support.JpaSliceTest;
+
+@JpaSliceTest
+@Import({ CategoryTreeService.class, SubcategoryService.class })
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class CategoryTreeServiceTests {
+
+	@Autowired
+	private CategoryTreeService categoryTreeService;
+
+	@Autowired
+	private SubcategoryService subcategoryService;
+
+	@Autowired
+	private CatalogFixtures fixtures;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@MockitoBean
+	private ProductService productService;
+
+	@MockitoBean
+	private ObjectDeletionService objectDeletionService;
+
+	private Subcategory phones;
+
+	@BeforeEach
+	void setUp() {
+		phones = fixtures.subcategory("Electronics", "Mobile Phones");
+		fixtures.product(phones, "Pixel 9", 799, null);
+		entityManager.flush();
+	}
+
+	@Test
+	void servesTheSnapshotUntilASubcategoryIsRenamed() {
+		byte[] json = categoryTreeService.getTreeJson();
+		assertThat(categoryTreeService.getTreeJson()).isSameAs(json);
+		assertThat(new String(json, StandardCharsets.UTF_8)).contains("Mobile Phones");
+
+		when(productService.getProductIdsBySubcategory(phones.getId())).thenReturn(List.of(42L));
+		Subcategory renamed = new Subcategory();
+		renamed.setName("Smartphones");
+		renamed.setDescription("Phones and accessories");
+		renamed.setCategory(phones.getCategory());
+		subcategoryService.updateSubcategory(phones.getId(), renamed);
+		entityManager.flush();
+
+		List<CategoryTreeNode> tree = categoryTreeService.getTree();
+		assertThat(tree).singleElement().satisfies(node -> {
+			assertThat(node.getProductCount()).isEqualTo(1);
+			assertThat(node.getSubCategory()).extracting(SubcategoryTreeNode::getName).containsExactly("Smartphones");
+		});
+		String rebuilt = new String(categoryTreeService.getTreeJson(), StandardCharsets.UTF_8);
+		assertThat(rebuilt).contains("Smartphones").doesNotContain("Mobile Phones");
+		// Search documents carry the subcategory name too
+		verify(productService).refreshProducts(List.of(42L));
+	}
+}
@@ -0,0 +1,127 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.excelr.config.CacheConfig;
+import com.excelr.model.ExportFormat;
+import com.excelr.model.ExportJob;
+import com.excelr.model.ExportJobStatus;
+import com.excelr.model.Subcategory;
+import com.excelr.repository.ProductRepository;
+import com.excelr.support.CatalogFixtures;
+import com.excelr.support.CommittedJpaSliceTest;
+import com.excelr.util.ProductSearchIndex;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Runs without a test transaction so the export worker sees committed rows
+@CommittedJpaSliceTest
+@Import({ ExportJobService.class, ProductService.class, ProductSearchIndex.class, StockLedger.class,
+		StockReservationService.class, CacheConfig.class, ExportJobServiceTests.Metrics.class })
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@TestPropertySource(properties = "export.workers=1")
+class ExportJobServiceTests {
+
+	@TempDir
+	static Path spool;
+
+	@DynamicPropertySource
+	static void spoolDir(DynamicPropertyRegistry registry) {
+		registry.add("export.spool.dir", spool::toString);
+	}
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private ExportJobService exportJobService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CatalogFixtures fixtures;
+
+	@MockitoBean
+	private ObjectDeletionService objectDeletionService;
+
+	@MockitoBean
+	private ImageUploadService imageUploadService;
+
+	@MockitoBean
+	private CategoryTreeService categoryTreeService;
+
+	private Subcategory subcategory;
+
+	@BeforeEach
+	void setUp() {
+		productRepository.deleteAllInBatch();
+		subcategory = fixtures.subcategory("Home", "Lighting " + System.nanoTime());
+	}
+
+	@Test
+	void spoolsEveryChunkOfACsvExport() throws Exception {
+		// Two full 500 row chunks and a partial one
+		List<Long> ids = fixtures.products(subcategory, 1001);
+
+		ExportJob job = await(exportJobService.submit(ExportFormat.CSV));
+
+		assertThat(job.getError()).isNull();
+		assertThat(job.getTotalRows()).isEqualTo(1001);
+		assertThat(job.getRowsWritten()).isEqualTo(1001);
+		assertThat(job.getEtaSeconds()).isZero();
+		assertThat(job.getFile()).isEqualTo(spool.resolve(job.getFileName()));
+		assertThat(job.getSizeBytes()).isEqualTo(Files.size(job.getFile()));
+		assertThat(spool.resolve(job.getId() + ".part")).doesNotExist();
+		List<String> lines = Files.readAllLines(job.getFile(), StandardCharsets.UTF_8);
+		assertThat(lines.subList(1, lines.size()))
+				.extracting(line -> Long.valueOf(line.substring(0, line.indexOf(','))))
+				.containsExactlyElementsOf(ids);
+	}
+
+	@Test
+	void spoolsEveryChunkOfAnNdjsonExport() throws Exception {
+		fixtures.products(subcategory, 1000);
+
+		ExportJob job = await(exportJobService.submit(ExportFormat.NDJSON));
+
+		assertThat(job.getRowsWritten()).isEqualTo(1000);
+		assertThat(Files.readAllLines(job.getFile(), StandardCharsets.UTF_8)).hasSize(1000)
+				.allSatisfy(line -> assertThat(line).startsWith("{").contains(subcategory.getName()));
+	}
+
+	private static ExportJob await(ExportJob job) throws InterruptedException {
+		long deadline = System.nanoTime() + 30_000_000_000L;
+		while (job.getStatus() == ExportJobStatus.QUEUED || job.getStatus() == ExportJobStatus.RUNNING) {
+			assertThat(System.nanoTime()).as("export job %s still running", job.getId()).isLessThan(deadline);
+			Thread.sleep(20);
+		}
+		assertThat(job.getStatus()).isEqualTo(ExportJobStatus.COMPLETED);
+		return job;
+	}
+}
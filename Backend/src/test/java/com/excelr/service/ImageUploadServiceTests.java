@@ -0,0 +1,126 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.excelr.model.ImageStatus;
+import com.excelr.service.ImageUploadService.PendingUpload;
+import com.excelr.util.LocalFileS3Client;
+import com.excelr.util.S3ObjectStore;
+import com.excelr.util.S3Util;
+
+class ImageUploadServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	private LocalFileS3Client s3Client;
+	private ImageUploadService uploadService;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		Path bucket = Files.createDirectories(tempDir.resolve("bucket"));
+		s3Client = new LocalFileS3Client(bucket);
+		S3Util s3Util = new S3Util();
+		ReflectionTestUtils.setField(s3Util, "objectStore", new S3ObjectStore(s3Client, "test-bucket"));
+
+		uploadService = new ImageUploadService(s3Util);
+		ReflectionTestUtils.setField(uploadService, "spoolDir", tempDir.resolve("spool").toString());
+		ReflectionTestUtils.setField(uploadService, "workers", 1);
+		ReflectionTestUtils.setField(uploadService, "queueCapacity", 1);
+		ReflectionTestUtils.setField(uploadService, "maxAttempts", 3);
+		ReflectionTestUtils.setField(uploadService, "backoffMillis", 1L);
+		uploadService.init();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		uploadService.shutdown();
+	}
+
+	@Test
+	void uploadsInBackgroundAndReportsReady() throws Exception {
+		PendingUpload upload = uploadService.stage(png("phone.png"));
+		assertThat(upload.getUrl()).isEqualTo("https://test-bucket.s3.amazonaws.com/" + upload.getKey());
+
+		assertThat(run(upload)).isEqualTo(ImageStatus.READY);
+		assertThat(s3Client.resolve(upload.getKey())).exists();
+		assertThat(upload.getFile()).doesNotExist();
+		assertThat(uploadService.getInFlight()).isZero();
+	}
+
+	@Test
+	void generatesVariantsSmallerThanTheOriginal() throws Exception {
+		PendingUpload upload = uploadService.stage(png("banner.png", 400, 300));
+		CompletableFuture<String> widths = new CompletableFuture<>();
+		uploadService.start(upload, (status, variantWidths) -> widths.complete(variantWidths));
+
+		assertThat(widths.get(10, TimeUnit.SECONDS)).isEqualTo("128,320");
+		BufferedImage thumbnail = ImageIO.read(s3Client.resolve("w128_" + upload.getKey()).toFile());
+		assertThat(thumbnail.getWidth()).isEqualTo(128);
+		assertThat(thumbnail.getHeight()).isEqualTo(96);
+		assertThat(s3Client.resolve("w320_" + upload.getKey())).exists();
+		assertThat(s3Client.resolve("w800_" + upload.getKey())).doesNotExist();
+	}
+
+	@Test
+	void retriesTransientFailures() throws Exception {
+		s3Client.failNextPuts(2);
+
+		assertThat(run(uploadService.stage(png("phone.png")))).isEqualTo(ImageStatus.READY);
+		assertThat(s3Client.getPutCount()).isEqualTo(3);
+	}
+
+	@Test
+	void reportsFailedAfterExhaustingRetries() throws Exception {
+		s3Client.failNextPuts(5);
+
+		assertThat(run(uploadService.stage(png("phone.png")))).isEqualTo(ImageStatus.FAILED);
+		assertThat(s3Client.getPutCount()).isEqualTo(3);
+	}
+
+	@Test
+	void rejectsUploadsBeyondCapacity() throws Exception {
+		PendingUpload first = uploadService.stage(png("a.png"));
+		PendingUpload second = uploadService.stage(png("b.png"));
+
+		assertThatThrownBy(() -> uploadService.stage(png("c.png"))).isInstanceOf(RejectedExecutionException.class);
+
+		uploadService.cancel(first);
+		uploadService.cancel(second);
+		assertThat(uploadService.getInFlight()).isZero();
+	}
+
+	private ImageStatus run(PendingUpload upload) throws Exception {
+		CompletableFuture<ImageStatus> status = new CompletableFuture<>();
+		uploadService.start(upload, (result, variantWidths) -> status.complete(result));
+		return status.get(10, TimeUnit.SECONDS);
+	}
+
+	private static MockMultipartFile png(String name) throws Exception {
+		return png(name, 32, 32);
+	}
+
+	private static MockMultipartFile png(String name, int width, int height) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+		return new MockMultipartFile("image", name, "image/png", out.toByteArray());
+	}
+}
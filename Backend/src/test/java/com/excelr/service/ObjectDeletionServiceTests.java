@@ -0,0 +1,104 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.excelr.model.ObjectDeletion;
+import com.excelr.repository.ObjectDeletionRepository;
+import com.excelr.support.JpaSliceTest;
+import com.excelr.util.InMemoryObjectStore;
+import com.excelr.util.S3Util;
+
+@JpaSliceTest
+class ObjectDeletionServiceTests {
+
+	private static final String BASE_URL = "http://localhost:8081/media/";
+
+	@Autowired
+	private ObjectDeletionRepository deletionRepository;
+
+	private FlakyObjectStore objectStore;
+	private ObjectDeletionService deletionService;
+
+	@BeforeEach
+	void setUp() {
+		objectStore = new FlakyObjectStore();
+		S3Util s3Util = new S3Util();
+		ReflectionTestUtils.setField(s3Util, "objectStore", objectStore);
+		deletionService = new ObjectDeletionService(deletionRepository, objectStore, s3Util);
+		ReflectionTestUtils.setField(deletionService, "batchSize", 3);
+		ReflectionTestUtils.setField(deletionService, "backoffMillis", 60_000L);
+		ReflectionTestUtils.setField(deletionService, "maxBackoffMillis", 600_000L);
+	}
+
+	@Test
+	void drainsOriginalsAndVariantsInBatches() {
+		for (String key : List.of("a.png", "w128_a.png", "b.png", "w800_b.png")) {
+			objectStore.put(key, new byte[] {1}, "image/png");
+		}
+
+		deletionService.enqueue(List.of(BASE_URL + "a.png", BASE_URL + "b.png"));
+		deletionService.enqueue("https://elsewhere.example.com/c.png");
+		assertThat(deletionService.getPending()).isEqualTo(8);
+
+		deletionService.drain();
+
+		assertThat(deletionService.getPending()).isZero();
+		assertThat(objectStore.size()).isZero();
+		assertThat(objectStore.batchSizes).containsExactly(3, 3, 2);
+	}
+
+	@Test
+	void backsOffFailedKeysAndKeepsThem() {
+		objectStore.failing.add("w320_a.png");
+
+		deletionService.enqueue(BASE_URL + "a.png");
+		deletionService.drain();
+
+		List<ObjectDeletion> remaining = deletionRepository.findAll();
+		assertThat(remaining).singleElement().satisfies(deletion -> {
+			assertThat(deletion.getObjectKey()).isEqualTo("w320_a.png");
+			assertThat(deletion.getAttempts()).isEqualTo(1);
+			assertThat(deletion.getNextAttemptAt()).isAfter(Instant.now().plusSeconds(30));
+		});
+
+		objectStore.failing.clear();
+		deletionService.drain();
+		assertThat(deletionService.getPending()).isEqualTo(1);
+	}
+
+	private static class FlakyObjectStore extends InMemoryObjectStore {
+
+		private final Set<String> failing = new HashSet<>();
+		private final List<Integer> batchSizes = new ArrayList<>();
+
+		FlakyObjectStore() {
+			super(BASE_URL);
+		}
+
+		@Override
+		public Set<String> deleteAll(Collection<String> keys) {
+			batchSizes.add(keys.size());
+			Set<String> failed = new HashSet<>();
+			for (String key : keys) {
+				if (failing.contains(key)) {
+					failed.add(key);
+				} else {
+					delete(key);
+				}
+			}
+			return failed;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.excelr.exceptionHandler.CartNotReadyException;
+import com.excelr.exceptionHandler.PaymentGatewayException;
+import com.excelr.model.PaymentOrder;
+import com.excelr.model.PaymentOrderStatus;
+import com.excelr.model.Productdto;
+import com.excelr.model.Subcategory;
+import com.excelr.repository.PaymentOrderRepository;
+import com.excelr.repository.ProductRepository;
+import com.excelr.support.CatalogFixtures;
+import com.excelr.support.CommittedJpaSliceTest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Committed data, so concurrent retries on worker threads see the same products and orders
+@CommittedJpaSliceTest
+@Import({ PaymentOrderService.class, CartService.class, StockReservationService.class, StockLedger.class,
+		PaymentOrderServiceTests.Stubs.class })
+@TestPropertySource(properties = {
+		"payment.gateway.timeout.ms=500",
+		"payment.gateway.workers=4",
+		"payment.idempotency.maximum-size=1000",
+		"cart.maximum-size=1000",
+		"cart.persist.enabled=false",
+		"stock.ledger.stripes=16"
+})
+class PaymentOrderServiceTests {
+
+	private static final AtomicInteger USERS = new AtomicInteger();
+
+	@TestConfiguration
+	static class Stubs {
+		@Bean
+		StubGateway stubGateway() {
+			return new StubGateway();
+		}
+
+		@Bean
+		Cache<Long, Productdto> productCache() {
+			return Caffeine.newBuilder().build();
+		}
+	}
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PaymentOrderRepository orderRepository;
+
+	@Autowired
+	private CatalogFixtures fixtures;
+
+	@Autowired
+	private StubGateway gateway;
+
+	@Autowired
+	private CartService cartService;
+
+	@Autowired
+	private PaymentOrderService orderService;
+
+	private Integer user;
+	private Long productId;
+
+	@BeforeEach
+	void setUp() {
+		Subcategory subcategory = fixtures.subcategory("Audio", "Headphones " + System.nanoTime());
+		productId = fixtures.product(subcategory, "Studio headphones", 249.99, 10).getId();
+		gateway.calls.set(0);
+		gateway.delayMillis = 0;
+
+		user = USERS.incrementAndGet();
+		cartService.addItem(user, productId, 2);
+	}
+
+	@Test
+	void concurrentRetriesWithOneKeyCreateOneGatewayOrder() throws Exception {
+		gateway.delayMillis = 100;
+		int threads = 20;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<PaymentOrder>> results = new ArrayList<>();
+		PaymentOrder created = null;
+		try {
+			for (int i = 0; i < threads; i++) {
+				results.add(pool.submit(() -> {
+					start.await();
+					return orderService.createOrder(user, "checkout-1", "INR");
+				}));
+			}
+			start.countDown();
+			for (Future<PaymentOrder> result : results) {
+				created = result.get(10, TimeUnit.SECONDS);
+				assertThat(created.getGatewayOrderId()).isEqualTo("order_1");
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(gateway.calls.get()).isEqualTo(1);
+		assertThat(quantity()).isEqualTo(8);
+		PaymentOrder stored = orderRepository.findById(created.getId()).orElseThrow();
+		assertThat(stored.getStatus()).isEqualTo(PaymentOrderStatus.CREATED);
+		assertThat(stored.getAmountPaise()).isEqualTo(49998);
+	}
+
+	@Test
+	void retryAfterRestartReturnsTheStoredOrderWithoutCallingTheGateway() {
+		PaymentOrder first = orderService.createOrder(user, "checkout-2", "INR");
+		orderService.shutdown();
+		orderService.init();
+
+		PaymentOrder retried = orderService.createOrder(user, "checkout-2", "INR");
+
+		assertThat(retried.getId()).isEqualTo(first.getId());
+		assertThat(gateway.calls.get()).isEqualTo(1);
+		assertThat(quantity()).isEqualTo(8);
+		assertThat(orderService.createOrder(user, "checkout-3", "INR").getGatewayOrderId()).isEqualTo("order_2");
+	}
+
+	@Test
+	void timedOutGatewayCallReleasesStockAndCanBeRetried() {
+		gateway.delayMillis = 2000;
+		assertThatThrownBy(() -> orderService.createOrder(user, "checkout-4", "INR"))
+				.isInstanceOf(PaymentGatewayException.class);
+		assertThat(quantity()).isEqualTo(10);
+
+		gateway.delayMillis = 0;
+		PaymentOrder order = orderService.createOrder(user, "checkout-4", "INR");
+		assertThat(order.getStatus()).isEqualTo(PaymentOrderStatus.CREATED);
+		assertThat(quantity()).isEqualTo(8);
+		assertThat(orderRepository.findAll()).filteredOn(o -> o.getReceipt().equals(order.getReceipt())).hasSize(1);
+	}
+
+	@Test
+	void unavailableCartIsRejectedBeforeTheGateway() {
+		cartService.setQuantity(user, productId, 11);
+
+		assertThatThrownBy(() -> orderService.createOrder(user, "checkout-5", "INR"))
+				.isInstanceOf(CartNotReadyException.class);
+		assertThat(gateway.calls.get()).isZero();
+	}
+
+	private int quantity() {
+		return productRepository.findQuantityById(productId).orElseThrow();
+	}
+
+	static class StubGateway implements PaymentGateway {
+		final AtomicInteger calls = new AtomicInteger();
+		volatile long delayMillis;
+
+		@Override
+		public String createOrder(long amountPaise, String currency, String receipt) {
+			int call = calls.incrementAndGet();
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new PaymentGatewayException("Interrupted", e);
+			}
+			return "order_" + call;
+		}
+	}
+}
@@ -0,0 +1,284 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.excelr.model.PaymentEvent;
+import com.excelr.model.PaymentEventStatus;
+import com.excelr.model.PaymentOrder;
+import com.excelr.model.PaymentOrderStatus;
+import com.excelr.model.Productdto;
+import com.excelr.model.ReservationLine;
+import com.excelr.model.ReservationStatus;
+import com.excelr.model.StockReservation;
+import com.excelr.model.Subcategory;
+import com.excelr.repository.PaymentEventRepository;
+import com.excelr.repository.PaymentOrderRepository;
+import com.excelr.repository.ProductRepository;
+import com.excelr.repository.StockReservationRepository;
+import com.excelr.support.CatalogFixtures;
+import com.excelr.support.JpaSliceTest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@JpaSliceTest
+@Import({ PaymentWebhookService.class, RazorpayService.class, StockReservationService.class, StockLedger.class,
+		PaymentWebhookServiceTests.Stubs.class })
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@TestPropertySource(properties = {
+		"razorpay.key.id=rzp_test_key",
+		"razorpay.key.secret=rzp_test_secret",
+		"razorpay.webhook.secret=" + PaymentWebhookServiceTests.WEBHOOK_SECRET,
+		"payment.gateway.workers=1",
+		"payment.idempotency.maximum-size=100",
+		"payment.webhook.max-concurrent=4",
+		"payment.webhook.batch-size=2",
+		"payment.webhook.max-attempts=5",
+		"payment.webhook.backoff.ms=1000",
+		"payment.webhook.max-backoff.ms=60000",
+		"payment.webhook.claim.ttl.ms=60000",
+		// The tests drain by hand
+		"payment.webhook.poll.ms=3600000",
+		"stock.ledger.stripes=16"
+})
+class PaymentWebhookServiceTests {
+
+	static final String WEBHOOK_SECRET = "whsec_test";
+	private static final String POISON_ORDER = "order_poison";
+
+	@TestConfiguration
+	static class Stubs {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		Cache<Long, Productdto> productCache() {
+			return Caffeine.newBuilder().build();
+		}
+
+		@Bean
+		PaymentOrderService paymentOrderService(PaymentOrderRepository orderRepository,
+				StockReservationService stockReservationService) {
+			return new PaymentOrderService((amount, currency, receipt) -> "unused", orderRepository, null,
+					stockReservationService) {
+				@Override
+				public void markPaid(Collection<String> gatewayOrderIds) {
+					if (gatewayOrderIds.contains(POISON_ORDER)) {
+						throw new IllegalStateException("Order " + POISON_ORDER + " is locked");
+					}
+					super.markPaid(gatewayOrderIds);
+				}
+			};
+		}
+	}
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private StockReservationRepository reservationRepository;
+
+	@Autowired
+	private PaymentOrderRepository orderRepository;
+
+	@Autowired
+	private PaymentEventRepository eventRepository;
+
+	@Autowired
+	private CatalogFixtures fixtures;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private RazorpayService razorpayService;
+
+	@Autowired
+	private StockReservationService reservations;
+
+	@Autowired
+	private PaymentWebhookService webhookService;
+
+	private Long productId;
+
+	@BeforeEach
+	void setUp() {
+		Subcategory subcategory = fixtures.subcategory("Audio", "Speakers");
+		productId = fixtures.product(subcategory, "Bookshelf speaker", 120, 10).getId();
+		entityManager.flush();
+		// Counters are looked up on every use, so clearing gives each test its own counts
+		meterRegistry.clear();
+	}
+
+	@Test
+	void verifiesSignaturesOverRawBytes() throws Exception {
+		byte[] body = "{\"event\":\"payment.captured\"}".getBytes(StandardCharsets.UTF_8);
+		String signature = sign(WEBHOOK_SECRET, body);
+
+		assertThat(razorpayService.verifyWebhook(body, signature)).isTrue();
+		assertThat(razorpayService.verifyWebhook(body, signature.toUpperCase())).isTrue();
+		assertThat(razorpayService.verifyWebhook(body, signature.substring(2))).isFalse();
+		assertThat(razorpayService.verifyWebhook(body, "not-hex")).isFalse();
+		assertThat(razorpayService.verifyWebhook(body, null)).isFalse();
+
+		String checkout = sign("rzp_test_secret", "order_1|pay_1".getBytes(StandardCharsets.UTF_8));
+		assertThat(razorpayService.verifyPayment("order_1", "pay_1", checkout)).isTrue();
+		assertThat(razorpayService.verifyPayment("order_1", "pay_2", checkout)).isFalse();
+
+		assertThat(meterRegistry.counter("payment.signature.verifications", "type", "webhook", "result", "valid")
+				.count()).isEqualTo(2);
+		assertThat(meterRegistry.counter("payment.signature.verifications", "type", "webhook", "result", "invalid")
+				.count()).isEqualTo(3);
+		assertThat(meterRegistry.counter("payment.signature.verifications", "type", "checkout", "result", "invalid")
+				.count()).isEqualTo(1);
+	}
+
+	@Test
+	void appliesDeduplicatedEventsInBatches() throws Exception {
+		StockReservation paid = hold("order_A", 3);
+		StockReservation abandoned = hold("order_B", 2);
+		assertThat(quantity()).isEqualTo(5);
+
+		assertThat(deliver("evt_1", captured("order_A"))).isTrue();
+		assertThat(deliver("evt_1", captured("order_A"))).isTrue();
+		assertThat(deliver("evt_2", "{\"event\":\"order.paid\",\"payload\":{\"order\":{\"entity\":{\"id\":\"order_A\"}}}}"))
+				.isTrue();
+		assertThat(deliver("evt_3", "{\"event\":\"payment.failed\",\"payload\":{\"payment\":{\"entity\":"
+				+ "{\"id\":\"pay_9\",\"order_id\":\"order_B\"}}}}")).isTrue();
+		assertThat(deliver("evt_4", "not json")).isTrue();
+		assertThat(webhookService.receive("evt_5", "00", captured("order_B").getBytes(StandardCharsets.UTF_8)))
+				.isFalse();
+		assertThat(eventRepository.count()).isEqualTo(4);
+
+		webhookService.drain();
+		entityManager.clear();
+
+		assertThat(reservationRepository.findById(paid.getId()).orElseThrow().getStatus())
+				.isEqualTo(ReservationStatus.CONFIRMED);
+		assertThat(reservationRepository.findById(abandoned.getId()).orElseThrow().getStatus())
+				.isEqualTo(ReservationStatus.RELEASED);
+		assertThat(orderRepository.findByGatewayOrderId("order_A").orElseThrow().getStatus())
+				.isEqualTo(PaymentOrderStatus.PAID);
+		assertThat(orderRepository.findByGatewayOrderId("order_B").orElseThrow().getStatus())
+				.isEqualTo(PaymentOrderStatus.CREATED);
+		assertThat(quantity()).isEqualTo(7);
+		assertThat(eventRepository.findAll()).extracting(PaymentEvent::getProcessedAt).doesNotContainNull();
+	}
+
+	@Test
+	void retriesOnlyTheFailingEventAndParksItAfterMaxAttempts() throws Exception {
+		hold("order_A", 1);
+		assertThat(deliver("evt_1", captured("order_A"))).isTrue();
+		assertThat(deliver("evt_2", captured(POISON_ORDER))).isTrue();
+
+		webhookService.drain();
+		entityManager.clear();
+
+		assertThat(orderRepository.findByGatewayOrderId("order_A").orElseThrow().getStatus())
+				.isEqualTo(PaymentOrderStatus.PAID);
+		assertThat(event("evt_1").getStatus()).isEqualTo(PaymentEventStatus.PROCESSED);
+		PaymentEvent poison = event("evt_2");
+		assertThat(poison.getStatus()).isEqualTo(PaymentEventStatus.PENDING);
+		assertThat(poison.getAttempts()).isEqualTo(1);
+		assertThat(poison.getNextAttemptAt()).isAfter(Instant.now());
+		assertThat(poison.getLastError()).contains("is locked");
+
+		// Backing off keeps the event out of the next poll
+		webhookService.drain();
+		entityManager.clear();
+		assertThat(event("evt_2").getAttempts()).isEqualTo(1);
+
+		for (int attempt = 2; attempt <= 5; attempt++) {
+			jdbcTemplate.update("UPDATE payment_event SET next_attempt_at = ? WHERE event_id = 'evt_2'",
+					Timestamp.from(Instant.now().minusSeconds(1)));
+			webhookService.drain();
+			entityManager.clear();
+		}
+		assertThat(event("evt_2").getStatus()).isEqualTo(PaymentEventStatus.FAILED);
+		assertThat(event("evt_2").getAttempts()).isEqualTo(5);
+		assertThat(meterRegistry.counter("payment.webhook.failures", "outcome", "retry").count()).isEqualTo(4);
+		assertThat(meterRegistry.counter("payment.webhook.failures", "outcome", "dead_letter").count()).isEqualTo(1);
+	}
+
+	@Test
+	void claimsEachDueEventOnce() throws Exception {
+		assertThat(deliver("evt_1", captured("order_A"))).isTrue();
+		Instant now = Instant.now();
+		List<Long> due = eventRepository.findDueIds(now, PageRequest.of(0, 10));
+
+		assertThat(eventRepository.claim(due, "consumer-a", now, now.plusSeconds(60))).isEqualTo(1);
+		assertThat(eventRepository.claim(due, "consumer-b", now, now.plusSeconds(60))).isZero();
+		assertThat(eventRepository.findClaimed("consumer-a")).extracting(PaymentEvent::getEventId).containsExactly("evt_1");
+		assertThat(eventRepository.findClaimed("consumer-b")).isEmpty();
+	}
+
+	private PaymentEvent event(String eventId) {
+		return eventRepository.findAll().stream().filter(e -> eventId.equals(e.getEventId())).findFirst().orElseThrow();
+	}
+
+	private StockReservation hold(String orderId, int quantity) {
+		StockReservation reservation = reservations.reserve(List.of(new ReservationLine(productId, quantity)));
+		reservations.attachOrder(reservation.getId(), orderId);
+		PaymentOrder order = new PaymentOrder();
+		order.setReceipt("rcpt_" + orderId);
+		order.setGatewayOrderId(orderId);
+		order.setStatus(PaymentOrderStatus.CREATED);
+		order.setReservationId(reservation.getId());
+		order.setCreatedAt(Instant.now());
+		orderRepository.save(order);
+		return reservation;
+	}
+
+	private boolean deliver(String eventId, String payload) throws Exception {
+		byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+		return webhookService.receive(eventId, sign(WEBHOOK_SECRET, body), body);
+	}
+
+	private static String captured(String orderId) {
+		return "{\"event\":\"payment.captured\",\"payload\":{\"payment\":{\"entity\":"
+				+ "{\"id\":\"pay_1\",\"order_id\":\"" + orderId + "\"}}}}";
+	}
+
+	private static String sign(String secret, byte[] body) throws Exception {
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		return HexFormat.of().formatHex(mac.doFinal(body));
+	}
+
+	private int quantity() {
+		return productRepository.findQuantityById(productId).orElseThrow();
+	}
+}
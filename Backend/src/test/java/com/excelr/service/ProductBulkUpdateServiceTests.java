@@ -0,0 +1,99 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.excelr.model.Product;
+import com.excelr.model.ProductBulkUpdateResult;
+import com.excelr.model.ProductUpdateOutcome;
+import com.excelr.model.ProductUpdateStatus;
+import com.excelr.model.Subcategory;
+import com.excelr.support.CatalogFixtures;
+import com.excelr.support.JpaSliceTest;
+
+@JpaSliceTest
+@Import(ProductBulkUpdateService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@TestPropertySource(properties = { "bulk-update.chunk-size=2", "bulk-update.max-items=100" })
+class ProductBulkUpdateServiceTests {
+
+	@Autowired
+	private ProductBulkUpdateService bulkUpdateService;
+
+	@Autowired
+	private CatalogFixtures fixtures;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@MockitoBean
+	private ProductService productService;
+
+	private Long first;
+	private Long second;
+
+	@BeforeEach
+	void setUp() {
+		Subcategory phones = fixtures.subcategory("Electronics", "Mobile Phones");
+		first = fixtures.product(phones, "Pixel 9", 799, 10).getId();
+		second = fixtures.product(phones, "Galaxy S24", 899, 5).getId();
+		entityManager.flush();
+	}
+
+	@Test
+	void appliesNdjsonUpdatesInChunksWithOutcomesInRequestOrder() {
+		String body = "{\"id\":" + first + ",\"price\":749.5}\n"
+				+ "{\"id\":999999,\"quantity\":1}\n"
+				+ "{\"id\":" + second + ",\"quantity\":-3}\n"
+				+ "{\"id\":" + second + ",\"quantity\":42}\n"
+				+ "{\"price\":1}\n";
+
+		ProductBulkUpdateResult result = apply(body);
+
+		assertThat(result.getOutcomes()).extracting(ProductUpdateOutcome::getStatus).containsExactly(
+				ProductUpdateStatus.UPDATED, ProductUpdateStatus.NOT_FOUND, ProductUpdateStatus.INVALID,
+				ProductUpdateStatus.UPDATED, ProductUpdateStatus.INVALID);
+		assertThat(result.getUpdated()).isEqualTo(2);
+		assertThat(result.getInvalid()).isEqualTo(2);
+
+		entityManager.clear();
+		Product pixel = entityManager.find(Product.class, first);
+		assertThat(pixel.getPrice()).isEqualTo(749.5);
+		assertThat(pixel.getQuantity()).isEqualTo(10);
+		Product galaxy = entityManager.find(Product.class, second);
+		assertThat(galaxy.getPrice()).isEqualTo(899);
+		assertThat(galaxy.getQuantity()).isEqualTo(42);
+		verify(productService, times(2)).refreshProducts(anyList());
+	}
+
+	@Test
+	void acceptsJsonArraysAndStopsAtMalformedInput() {
+		String body = "[{\"id\":" + first + ",\"price\":1,\"quantity\":2}, {\"id\": \"oops\"}]";
+
+		ProductBulkUpdateResult result = apply(body);
+
+		assertThat(result.getOutcomes()).extracting(ProductUpdateOutcome::getStatus)
+				.containsExactly(ProductUpdateStatus.UPDATED, ProductUpdateStatus.INVALID);
+		entityManager.clear();
+		assertThat(entityManager.find(Product.class, first).getQuantity()).isEqualTo(2);
+	}
+
+	private ProductBulkUpdateResult apply(String body) {
+		return bulkUpdateService.applyUpdates(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,134 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.excelr.model.Product;
+import com.excelr.model.ProductImportError;
+import com.excelr.model.ProductImportResult;
+import com.excelr.model.ProductSearchSort;
+import com.excelr.repository.ProductRepository;
+import com.excelr.support.CatalogFixtures;
+import com.excelr.support.JpaSliceTest;
+import com.excelr.util.ProductSearchIndex;
+
+@JpaSliceTest
+@Import({ ProductImportService.class, ProductSearchIndex.class })
+@TestPropertySource(properties = { "import.batch-size=2", "import.max-reported-errors=1" })
+class ProductImportServiceTests {
+
+	@Autowired
+	private ProductImportService importService;
+
+	@Autowired
+	private ProductSearchIndex searchIndex;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CatalogFixtures fixtures;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@MockitoBean
+	private CategoryTreeService categoryTreeService;
+
+	@BeforeEach
+	void setUp() {
+		fixtures.subcategory("Electronics", "Mobile Phones");
+		entityManager.flush();
+	}
+
+	@Test
+	void importsCsvInBatchesAndReportsBadRows() {
+		String csv = "\uFEFFID,Name,Price,Description,Brand,Rating,Quantity,Subcategory\r\n"
+				+ ",Pixel 9,799.00,\"Camera, \"\"AI\"\" and\nall-day battery\",Google,4.5,10,Mobile Phones\r\n"
+				+ ",Galaxy S24,\"1,099.99\",,Samsung,,,Mobile Phones\r\n"
+				+ ",Mystery,10,,,,,Toasters\r\n"
+				+ ",,,,,,,\r\n"
+				+ ",Nokia 3310,cheap,,Nokia,,,Mobile Phones\r\n"
+				+ ",iPhone 16,999,,Apple,4.8,5,Mobile Phones\r\n";
+
+		ProductImportResult result = importService.importProducts(
+				new MockMultipartFile("file", "feed.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(result.getRowsRead()).isEqualTo(5);
+		assertThat(result.getImported()).isEqualTo(3);
+		assertThat(result.getFailed()).isEqualTo(2);
+		assertThat(result.getErrors()).extracting(ProductImportError::getRow).containsExactly(4L);
+		assertThat(result.getErrors().get(0).getMessage()).isEqualTo("Unknown subcategory: Toasters");
+		assertThat(result.isErrorsTruncated()).isTrue();
+
+		List<Product> products = productRepository.findAll();
+		assertThat(products).extracting(Product::getName).containsExactlyInAnyOrder("Pixel 9", "Galaxy S24", "iPhone 16");
+		Product pixel = products.stream().filter(p -> p.getName().equals("Pixel 9")).findFirst().orElseThrow();
+		assertThat(pixel.getDescription()).isEqualTo("Camera, \"AI\" and\nall-day battery");
+		assertThat(pixel.getQuantity()).isEqualTo(10);
+
+		Product galaxy = products.stream().filter(p -> p.getName().equals("Galaxy S24")).findFirst().orElseThrow();
+		assertThat(galaxy.getPrice()).isEqualTo(1099.99);
+		assertThat(searchIndex.search("galaxy", ProductSearchSort.RELEVANCE, 0, 10).ids()).containsExactly(galaxy.getId());
+	}
+
+	@Test
+	void importsFirstSheetOfWorkbook() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			Sheet sheet = workbook.createSheet("Products");
+			Row header = sheet.createRow(0);
+			String[] columns = {"Name", "Price", "Subcategory", "Quantity"};
+			for (int i = 0; i < columns.length; i++) {
+				header.createCell(i).setCellValue(columns[i]);
+			}
+			for (int r = 1; r <= 5; r++) {
+				Row row = sheet.createRow(r);
+				row.createCell(0).setCellValue("Phone " + r);
+				row.createCell(1).setCellValue(100.5 * r);
+				row.createCell(2).setCellValue("Mobile Phones");
+				if (r != 3) {
+					row.createCell(3).setCellValue(r == 4 ? -1 : r);
+				}
+			}
+			workbook.write(out);
+		}
+
+		ProductImportResult result = importService.importProducts(new MockMultipartFile("file", "feed.xlsx",
+				"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", out.toByteArray()));
+
+		assertThat(result.getImported()).isEqualTo(4);
+		assertThat(result.getErrors()).singleElement().satisfies(error -> {
+			assertThat(error.getRow()).isEqualTo(5);
+			assertThat(error.getMessage()).isEqualTo("Quantity must be a non-negative whole number");
+		});
+		assertThat(productRepository.count()).isEqualTo(4);
+	}
+
+	@Test
+	void rejectsFilesWithoutRequiredColumns() {
+		MockMultipartFile file = new MockMultipartFile("file", "feed.csv", "text/csv",
+				"Name,Price\nPixel,1\n".getBytes(StandardCharsets.UTF_8));
+
+		assertThatThrownBy(() -> importService.importProducts(file))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Missing required column: subcategory");
+		assertThat(productRepository.count()).isZero();
+	}
+}
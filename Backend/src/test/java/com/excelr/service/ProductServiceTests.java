@@ -0,0 +1,247 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.excelr.config.CacheConfig;
+import com.excelr.model.ExportFormat;
+import com.excelr.model.ProductSearchPage;
+import com.excelr.model.Productdto;
+import com.excelr.model.ReservationLine;
+import com.excelr.model.Subcategory;
+import com.excelr.support.CatalogFixtures;
+import com.excelr.support.JpaSliceTest;
+import com.excelr.util.ProductSearchIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@JpaSliceTest
+@Import({ ProductService.class, ProductSearchIndex.class, StockLedger.class, StockReservationService.class,
+		CacheConfig.class, ProductServiceTests.Metrics.class })
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ProductServiceTests {
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private StockReservationService stockReservationService;
+
+	@Autowired
+	private Cache<Long, Productdto> productCache;
+
+	@Autowired
+	private CatalogFixtures fixtures;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@MockitoBean
+	private ObjectDeletionService objectDeletionService;
+
+	@MockitoBean
+	private ImageUploadService imageUploadService;
+
+	@MockitoBean
+	private CategoryTreeService categoryTreeService;
+
+	private Subcategory subcategory;
+
+	@BeforeEach
+	void setUp() {
+		// The cache outlives each test's rolled back rows
+		productCache.invalidateAll();
+		subcategory = fixtures.subcategory("Home", "Lighting");
+	}
+
+	@Test
+	void pagesThroughHitsUntilTheLastPageHasNoToken() {
+		products(5);
+
+		List<Long> seen = new ArrayList<>();
+		String token = null;
+		int pages = 0;
+		do {
+			ProductSearchPage page = productService.searchProducts("lamp", "price_asc", token, 2);
+			assertThat(page.getTotalHits()).isEqualTo(5);
+			assertThat(page.isTruncated()).isFalse();
+			assertThat(page.getContent()).allSatisfy(product -> assertThat(product.getName()).startsWith("Desk lamp"));
+			page.getContent().forEach(product -> seen.add(product.getId()));
+			token = page.getNextPageToken();
+			pages++;
+		} while (token != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(seen).doesNotHaveDuplicates().hasSize(5);
+		assertThat(productService.searchProducts("lamp", "price_asc", token(4), 2).getContent()).hasSize(1);
+	}
+
+	@Test
+	void rejectsGarbageAndTamperedPageTokens() {
+		products(1);
+
+		for (String token : List.of("not a token!", encode("x:2"), encode("o:-1"), encode("o:two"),
+				encode("o:99999999999"))) {
+			assertThatThrownBy(() -> productService.searchProducts("lamp", null, token, 10))
+					.as(token)
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessage("Invalid page token");
+		}
+	}
+
+	@Test
+	void clampsTheLimit() {
+		products(150);
+
+		ProductSearchPage page = productService.searchProducts("lamp", null, null, 500);
+		assertThat(page.getLimit()).isEqualTo(100);
+		assertThat(page.getContent()).hasSize(100);
+		assertThat(page.getNextPageToken()).isEqualTo(token(100));
+
+		assertThat(productService.searchProducts("lamp", null, null, 0).getContent()).hasSize(1);
+	}
+
+	@Test
+	void marksResultsBeyondTheSearchWindowAsTruncated() {
+		products(1200);
+
+		ProductSearchPage last = productService.searchProducts("lamp", null, token(950), 100);
+		assertThat(last.getContent()).hasSize(50);
+		assertThat(last.getLimit()).isEqualTo(50);
+		assertThat(last.getTotalHits()).isEqualTo(1200);
+		assertThat(last.isTruncated()).isTrue();
+		assertThat(last.getNextPageToken()).isNull();
+
+		ProductSearchPage past = productService.searchProducts("lamp", null, token(1000), 100);
+		assertThat(past.getContent()).isEmpty();
+		assertThat(past.getTotalHits()).isEqualTo(1200);
+		assertThat(past.isTruncated()).isTrue();
+		assertThat(past.getNextPageToken()).isNull();
+	}
+
+	@Test
+	void updatingAProductEvictsItsCachedCopy() {
+		Long id = products(1).get(0);
+		Productdto cached = productService.getProductById(id);
+		assertThat(productService.getProductById(id)).isSameAs(cached);
+
+		Productdto change = new Productdto();
+		change.setPrice(45.5);
+		change.setQuantity(12);
+		productService.updateProduct(id, change, null);
+
+		assertThat(productCache.getIfPresent(id)).isNull();
+		Productdto reloaded = productService.getProductById(id);
+		assertThat(reloaded.getPrice()).isEqualTo(45.5);
+		assertThat(reloaded.getQuantity()).isEqualTo(12);
+		assertThat(productService.searchProducts("lamp", null, null, 10).getContent())
+				.singleElement().extracting(Productdto::getPrice).isEqualTo(45.5);
+	}
+
+	@Test
+	void deletingAProductEvictsItsCachedCopy() {
+		List<Long> ids = products(2);
+		productService.getProductById(ids.get(0));
+		productService.searchProducts("lamp", null, null, 10);
+
+		productService.deleteProduct(ids.get(0));
+
+		assertThat(productCache.getIfPresent(ids.get(0))).isNull();
+		assertThatThrownBy(() -> productService.getProductById(ids.get(0))).hasMessage("Product not found");
+		assertThat(productService.searchProducts("lamp", null, null, 10).getContent())
+				.extracting(Productdto::getId).containsExactly(ids.get(1));
+	}
+
+	@Test
+	void stockChangesEvictTheCachedCopy() {
+		Long id = products(1).get(0);
+		assertThat(productService.getProductById(id).getQuantity()).isEqualTo(5);
+
+		stockReservationService.reserve(List.of(new ReservationLine(id, 2)));
+		// Stock is decremented with a bulk update; a later request starts with a fresh persistence context
+		entityManager.clear();
+
+		assertThat(productCache.getIfPresent(id)).isNull();
+		assertThat(productService.getProductById(id).getQuantity()).isEqualTo(3);
+		assertThat(productService.searchProducts("lamp", null, null, 10).getContent())
+				.singleElement().extracting(Productdto::getQuantity).isEqualTo(3);
+	}
+
+	@Test
+	void exportsEveryChunkInIdOrder() throws Exception {
+		// Two full 500 row chunks and a partial one
+		List<Long> ids = products(1001);
+
+		List<Long> progress = new ArrayList<>();
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		assertThat(productService.exportProducts(ExportFormat.CSV, csv, progress::add)).isEqualTo(1001);
+		assertThat(progress).containsExactly(500L, 1000L, 1001L);
+		List<String> lines = csv.toString(StandardCharsets.UTF_8).lines().skip(1).toList();
+		assertThat(lines).extracting(line -> Long.valueOf(line.substring(0, line.indexOf(','))))
+				.containsExactlyElementsOf(ids);
+		assertThat(lines.get(1000)).endsWith(",Lighting");
+
+		ByteArrayOutputStream xlsx = new ByteArrayOutputStream();
+		assertThat(productService.exportProducts(ExportFormat.XLSX, xlsx, rows -> { })).isEqualTo(1001);
+		try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(xlsx.toByteArray()))) {
+			Sheet sheet = workbook.getSheetAt(0);
+			assertThat(sheet.getLastRowNum()).isEqualTo(1001);
+			assertThat((long) sheet.getRow(501).getCell(0).getNumericCellValue()).isEqualTo(ids.get(500));
+			assertThat((long) sheet.getRow(1001).getCell(0).getNumericCellValue()).isEqualTo(ids.get(1000));
+		}
+	}
+
+	@Test
+	void stopsAfterAnEmptyChunkWhenTheCountIsAMultipleOfTheChunkSize() {
+		products(1000);
+
+		List<Long> progress = new ArrayList<>();
+		long rows = productService.exportProducts(ExportFormat.NDJSON, new ByteArrayOutputStream(), progress::add);
+		assertThat(rows).isEqualTo(1000);
+		assertThat(progress).containsExactly(500L, 1000L, 1000L);
+	}
+
+	private List<Long> products(int count) {
+		List<Long> ids = fixtures.products(subcategory, count);
+		productService.rebuildSearchIndex();
+		return ids;
+	}
+
+	private static String token(int offset) {
+		return encode("o:" + offset);
+	}
+
+	private static String encode(String token) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+	}
+}
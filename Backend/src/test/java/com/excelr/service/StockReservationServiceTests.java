@@ -0,0 +1,222 @@
+package com.excelr.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.excelr.exceptionHandler.InsufficientStockException;
+import com.excelr.model.Product;
+import com.excelr.model.Productdto;
+import com.excelr.model.ReservationLine;
+import com.excelr.model.ReservationStatus;
+import com.excelr.model.StockReservation;
+import com.excelr.model.Subcategory;
+import com.excelr.repository.ProductRepository;
+import com.excelr.repository.StockReservationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.excelr.support.CatalogFixtures;
+import com.excelr.support.CommittedJpaSliceTest;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Runs without a test transaction so worker threads see committed rows and contend on real row locks
+@CommittedJpaSliceTest
+class StockReservationServiceTests {
+
+	private static final int THREADS = 300;
+	private static final int STOCK = 50;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private StockReservationRepository reservationRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private CatalogFixtures fixtures;
+
+	private Subcategory subcategory;
+	private Cache<Long, Productdto> productCache;
+
+	@BeforeEach
+	void setUp() {
+		subcategory = fixtures.subcategory("Flash sale", "Deals " + System.nanoTime());
+		productCache = Caffeine.newBuilder().build();
+	}
+
+	@Test
+	void neverOversellsOneProductWithLedger() throws Exception {
+		assertNoOversell(service(true));
+	}
+
+	@Test
+	void neverOversellsOneProductOnDatabaseAlone() throws Exception {
+		assertNoOversell(service(false));
+	}
+
+	@Test
+	void releasesRestoreStockAndConfirmRetakesLapsedHolds() {
+		StockReservationService service = service(true);
+		Long id = product(5);
+		cache(id);
+
+		StockReservation reservation = service.reserve(List.of(new ReservationLine(id, 2), new ReservationLine(id, 1)));
+		service.attachOrder(reservation.getId(), "order_1");
+		assertThat(quantity(id)).isEqualTo(2);
+		assertThat(productCache.getIfPresent(id)).isNull();
+		assertThatThrownBy(() -> service.reserve(List.of(new ReservationLine(id, 3))))
+				.isInstanceOf(InsufficientStockException.class);
+
+		cache(id);
+		service.release("order_1");
+		assertThat(quantity(id)).isEqualTo(5);
+		assertThat(productCache.getIfPresent(id)).isNull();
+		assertThat(status(reservation)).isEqualTo(ReservationStatus.RELEASED);
+		service.release("order_1");
+		assertThat(quantity(id)).isEqualTo(5);
+
+		cache(id);
+		assertThat(service.confirm("order_1")).isTrue();
+		assertThat(quantity(id)).isEqualTo(2);
+		assertThat(productCache.getIfPresent(id)).isNull();
+
+		StockReservationService lapsing = service(true, -1);
+		StockReservation lapsed = lapsing.reserve(List.of(new ReservationLine(id, 2)));
+		lapsing.expireReservations();
+		assertThat(status(lapsed)).isEqualTo(ReservationStatus.EXPIRED);
+		assertThat(quantity(id)).isEqualTo(2);
+	}
+
+	@Test
+	void treatsAMissingQuantityAsNoStock() {
+		Long id = product(null);
+		for (StockReservationService service : List.of(service(true), service(false))) {
+			assertThatThrownBy(() -> service.reserve(List.of(new ReservationLine(id, 1))))
+					.isInstanceOf(InsufficientStockException.class)
+					.hasMessage("Insufficient stock for product " + id);
+		}
+
+		// Releasing a hold on a product whose quantity was cleared meanwhile restores it from zero
+		StockReservationService service = service(false);
+		Long held = product(3);
+		StockReservation reservation = service.reserve(List.of(new ReservationLine(held, 2)));
+		Product product = productRepository.findById(held).orElseThrow();
+		product.setQuantity(null);
+		productRepository.save(product);
+		service.release(reservation.getId(), ReservationStatus.RELEASED);
+		assertThat(productRepository.findById(held).orElseThrow().getQuantity()).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentConfirmsRetakeALapsedHoldOnce() throws Exception {
+		// Two instances with their own ledgers stand in for two replicas, so only the database serializes them
+		List<StockReservationService> replicas = List.of(service(true), service(true));
+		Long id = product(5);
+		StockReservation reservation = replicas.get(0).reserve(List.of(new ReservationLine(id, 2)));
+		replicas.get(0).attachOrder(reservation.getId(), "order_2");
+		replicas.get(0).release(reservation.getId(), ReservationStatus.EXPIRED);
+		assertThat(quantity(id)).isEqualTo(5);
+
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				StockReservationService replica = replicas.get(i % 2);
+				futures.add(pool.submit(() -> {
+					start.await();
+					return replica.confirm("order_2");
+				}));
+			}
+			start.countDown();
+			for (Future<Boolean> future : futures) {
+				assertThat(future.get(60, TimeUnit.SECONDS)).isTrue();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(quantity(id)).isEqualTo(3);
+		assertThat(status(reservation)).isEqualTo(ReservationStatus.CONFIRMED);
+		assertThat(reservationRepository.findAll()).filteredOn(r -> "order_2".equals(r.getOrderId())).hasSize(1);
+	}
+
+	private void assertNoOversell(StockReservationService service) throws Exception {
+		Long id = product(STOCK);
+		AtomicInteger reserved = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(pool.submit(() -> {
+					start.await();
+					try {
+						service.reserve(List.of(new ReservationLine(id, 1)));
+						reserved.incrementAndGet();
+					} catch (InsufficientStockException e) {
+						rejected.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(reserved.get()).isEqualTo(STOCK);
+		assertThat(rejected.get()).isEqualTo(THREADS - STOCK);
+		assertThat(quantity(id)).isZero();
+	}
+
+	private StockReservationService service(boolean ledgerEnabled) {
+		return service(ledgerEnabled, 15);
+	}
+
+	private StockReservationService service(boolean ledgerEnabled, long ttlMinutes) {
+		StockLedger ledger = new StockLedger(ledgerEnabled, 16, 2000);
+		ledger.init();
+		return new StockReservationService(productRepository, reservationRepository, transactionTemplate, ledger,
+				productCache, ttlMinutes);
+	}
+
+	private Long product(Integer quantity) {
+		return fixtures.product(subcategory, "Limited edition", 99, quantity).getId();
+	}
+
+	private int quantity(Long id) {
+		return productRepository.findQuantityById(id).orElseThrow();
+	}
+
+	// Search pages and product lookups read stock through this cache
+	private void cache(Long id) {
+		Productdto cached = new Productdto();
+		cached.setId(id);
+		cached.setQuantity(quantity(id));
+		productCache.put(id, cached);
+	}
+
+	private ReservationStatus status(StockReservation reservation) {
+		return reservationRepository.findById(reservation.getId()).orElseThrow().getStatus();
+	}
+}
@@ -0,0 +1,66 @@
+package com.excelr.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.test.context.TestComponent;
+
+import com.excelr.model.Category;
+import com.excelr.model.Product;
+import com.excelr.model.Subcategory;
+import com.excelr.repository.CategoryRepository;
+import com.excelr.repository.ProductRepository;
+import com.excelr.repository.SubcategoryRepository;
+
+/**
+ * Saves the category, subcategory and products a test needs. Rows join the
+ * test's transaction when it has one and are committed right away otherwise.
+ */
+@TestComponent
+public class CatalogFixtures {
+
+	private final CategoryRepository categoryRepository;
+	private final SubcategoryRepository subcategoryRepository;
+	private final ProductRepository productRepository;
+
+	public CatalogFixtures(CategoryRepository categoryRepository, SubcategoryRepository subcategoryRepository,
+			ProductRepository productRepository) {
+		this.categoryRepository = categoryRepository;
+		this.subcategoryRepository = subcategoryRepository;
+		this.productRepository = productRepository;
+	}
+
+	public Subcategory subcategory(String categoryName, String name) {
+		Category category = new Category();
+		category.setName(categoryName);
+		Subcategory subcategory = new Subcategory();
+		subcategory.setName(name);
+		subcategory.setCategory(categoryRepository.save(category));
+		return subcategoryRepository.save(subcategory);
+	}
+
+	public Product product(Subcategory subcategory, String name, double price, Integer quantity) {
+		return productRepository.save(newProduct(subcategory, name, price, quantity));
+	}
+
+	/**
+	 * Saves {@code count} products named "Desk lamp 1" onwards, priced from 11
+	 * upwards with 5 in stock, and returns their ids in insertion order.
+	 */
+	public List<Long> products(Subcategory subcategory, int count) {
+		List<Product> products = new ArrayList<>(count);
+		for (int i = 1; i <= count; i++) {
+			products.add(newProduct(subcategory, "Desk lamp " + i, 10 + i, 5));
+		}
+		return productRepository.saveAll(products).stream().map(Product::getId).toList();
+	}
+
+	private static Product newProduct(Subcategory subcategory, String name, double price, Integer quantity) {
+		Product product = new Product();
+		product.setName(name);
+		product.setPrice(price);
+		product.setQuantity(quantity);
+		product.setSubcategory(subcategory);
+		return product;
+	}
+}
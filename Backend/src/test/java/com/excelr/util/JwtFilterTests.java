@@ -0,0 +1,138 @@
+package com.excelr.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.excelr.config.CacheConfig;
+import com.excelr.model.AuthenticatedUser;
+import com.excelr.model.Role;
+import com.excelr.model.User;
+import com.excelr.repository.UserRepository;
+import com.excelr.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// USER is the users table here
+@DataJpaTest(properties = {
+		"spring.sql.init.mode=never",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.datasource.url=jdbc:h2:mem:principals;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"jwt.keys=k1:AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ JwtFilter.class, JwtUtil.class, JwtKeyManager.class, UserService.class, CacheConfig.class,
+		JwtFilterTests.Metrics.class })
+class JwtFilterTests {
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private JwtFilter jwtFilter;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private Cache<Integer, AuthenticatedUser> principalCache;
+
+	private User user;
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		user = new User();
+		user.setUsername("alice");
+		user.setEmail("alice@example.com");
+		user.setRole(Role.ROLE_USER);
+		user = userRepository.save(user);
+		token = jwtUtil.generateToken(user);
+	}
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void resolvesAChangedRoleOnceThePrincipalIsInvalidated() throws Exception {
+		assertThat(authority()).isEqualTo("ROLE_USER");
+
+		// Changed behind the cache's back: the cached principal is still served
+		user.setRole(Role.ROLE_ADMIN);
+		userRepository.save(user);
+		assertThat(authority()).isEqualTo("ROLE_USER");
+
+		principalCache.invalidate(user.getId());
+		assertThat(authority()).isEqualTo("ROLE_ADMIN");
+
+		User demoted = new User();
+		demoted.setId(user.getId());
+		demoted.setUsername("alice");
+		demoted.setRole(Role.ROLE_GUEST);
+		userService.updateUser(demoted);
+		assertThat(authority()).isEqualTo("ROLE_GUEST");
+	}
+
+	@Test
+	void rejectsTheTokenOfADeletedOrRenamedUser() throws Exception {
+		assertThat(authority()).isEqualTo("ROLE_USER");
+
+		User renamed = new User();
+		renamed.setId(user.getId());
+		renamed.setUsername("alice2");
+		renamed.setRole(Role.ROLE_USER);
+		userService.updateUser(renamed);
+		assertThat(authenticate()).isNull();
+
+		userService.deleteUserByname(user.getId());
+		assertThat(authenticate()).isNull();
+		assertThat(principalCache.getIfPresent(user.getId())).isNull();
+	}
+
+	private String authority() throws Exception {
+		Authentication authentication = authenticate();
+		assertThat(authentication).isNotNull();
+		return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).findFirst().orElseThrow();
+	}
+
+	// Each call stands in for a separate request
+	private Authentication authenticate() throws Exception {
+		SecurityContextHolder.clearContext();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+		request.addHeader("Authorization", "Bearer " + token);
+		jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+}
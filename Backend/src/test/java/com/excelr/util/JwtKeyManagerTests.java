@@ -0,0 +1,126 @@
+package com.excelr.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Base64;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.excelr.model.Role;
+import com.excelr.model.User;
+
+import io.jsonwebtoken.security.SignatureException;
+
+class JwtKeyManagerTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void signsWithTheActiveKidAndVerifiesWithAnyLoadedKey() throws Exception {
+		JwtKeyManager manager = load("Primary:" + secret(1) + ",old:" + secret(2), "PRIMARY", "", "");
+
+		assertThat(manager.getSigningKeyId()).isEqualTo("primary");
+		assertThat(manager.getVerificationKey("Primary")).isEqualTo(manager.getSigningKey());
+		assertThat(manager.getVerificationKey("OLD")).isNotEqualTo(manager.getSigningKey());
+		assertThat(manager.getVerificationKey(null)).isEqualTo(manager.getSigningKey());
+		assertThatThrownBy(() -> manager.getVerificationKey("other")).isInstanceOf(SignatureException.class);
+	}
+
+	@Test
+	void rejectsAmbiguousOrMissingKeyIds() {
+		assertThatThrownBy(() -> load("k1:" + secret(1) + ",K1:" + secret(2), "k1", "", ""))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("more than once");
+		assertThatThrownBy(() -> load("k1:" + secret(1) + ",k2:" + secret(2), "", "", ""))
+				.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> load("k1:" + secret(1), "k3", "", ""))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("does not match any loaded key");
+		assertThatThrownBy(() -> load("k1", "", "", "")).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void matchesKeystoreAliasesWhateverTheirCase() throws Exception {
+		// PKCS12 stores aliases in lower case, so "Signing2026" comes back as "signing2026"
+		Path keystore = dir.resolve("jwt.p12");
+		char[] password = "changeit".toCharArray();
+		KeyStore store = KeyStore.getInstance("PKCS12");
+		store.load(null, password);
+		store.setEntry("Signing2026", new KeyStore.SecretKeyEntry(new SecretKeySpec(bytes(3), "HmacSHA256")),
+				new KeyStore.PasswordProtection(password));
+		try (OutputStream out = Files.newOutputStream(keystore)) {
+			store.store(out, password);
+		}
+
+		JwtKeyManager manager = load("Legacy:" + secret(4), "Signing2026", keystore.toString(), "changeit");
+
+		assertThat(manager.getSigningKeyId()).isEqualTo("signing2026");
+		assertThat(manager.getSigningKey().getEncoded()).isEqualTo(bytes(3));
+		assertThat(manager.getVerificationKey("LEGACY").getEncoded()).isEqualTo(bytes(4));
+	}
+
+	@Test
+	void rotatesSigningKeysByKid() throws Exception {
+		String keys = "k1:" + secret(1) + ",k2:" + secret(2);
+		JwtUtil before = new JwtUtil(load(keys, "k1", "", ""));
+		JwtUtil after = new JwtUtil(load(keys, "k2", "", ""));
+		JwtUtil retired = new JwtUtil(load("k2:" + secret(2), "", "", ""));
+
+		String oldToken = before.generateToken(user());
+		String newToken = after.generateToken(user());
+
+		assertThat(after.extractUsername(oldToken)).isEqualTo("alice");
+		assertThat(before.extractUsername(newToken)).isEqualTo("alice");
+		assertThat(retired.extractUsername(newToken)).isEqualTo("alice");
+		assertThatThrownBy(() -> retired.extractUsername(oldToken)).isInstanceOf(SignatureException.class);
+	}
+
+	@Test
+	void fallsBackToAnEphemeralKeyPerInstance() throws Exception {
+		JwtKeyManager manager = load("", "", "", "");
+		assertThat(manager.getSigningKeyId()).isEqualTo("ephemeral");
+
+		JwtUtil first = new JwtUtil(manager);
+		JwtUtil second = new JwtUtil(load("", "", "", ""));
+		String token = first.generateToken(user());
+
+		assertThat(first.extractUsername(token)).isEqualTo("alice");
+		assertThatThrownBy(() -> second.extractUsername(token)).isInstanceOf(SignatureException.class);
+	}
+
+	private static JwtKeyManager load(String keys, String activeKid, String keystorePath, String keystorePassword)
+			throws Exception {
+		JwtKeyManager manager = new JwtKeyManager(keys, activeKid, keystorePath, keystorePassword);
+		manager.load();
+		return manager;
+	}
+
+	private static User user() {
+		User user = new User();
+		user.setId(7);
+		user.setUsername("alice");
+		user.setRole(Role.ROLE_USER);
+		return user;
+	}
+
+	private static String secret(int seed) {
+		return Base64.getEncoder().encodeToString(bytes(seed));
+	}
+
+	private static byte[] bytes(int seed) {
+		byte[] secret = new byte[32];
+		for (int i = 0; i < secret.length; i++) {
+			secret[i] = (byte) (i * 7 + seed);
+		}
+		return secret;
+	}
+}
@@ -0,0 +1,77 @@
+package com.excelr.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Filesystem stand-in for S3 used by tests: objects are stored as files named
+ * after their key under a root directory. Puts can be made to fail on demand.
+ */
+public class LocalFileS3Client implements S3Client {
+
+	private final Path root;
+	private final AtomicInteger failingPuts = new AtomicInteger();
+	private final AtomicInteger putCount = new AtomicInteger();
+
+	public LocalFileS3Client(Path root) {
+		this.root = root;
+	}
+
+	public void failNextPuts(int count) {
+		failingPuts.set(count);
+	}
+
+	public int getPutCount() {
+		return putCount.get();
+	}
+
+	public Path resolve(String key) {
+		return root.resolve(key);
+	}
+
+	@Override
+	public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+		putCount.incrementAndGet();
+		if (failingPuts.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+			throw (S3Exception) S3Exception.builder().statusCode(503).message("Slow Down").build();
+		}
+		try (InputStream in = body.contentStreamProvider().newStream()) {
+			Files.copy(in, resolve(request.key()), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return PutObjectResponse.builder().build();
+	}
+
+	@Override
+	public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+		try {
+			Files.deleteIfExists(resolve(request.key()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return DeleteObjectResponse.builder().build();
+	}
+
+	@Override
+	public String serviceName() {
+		return SERVICE_NAME;
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,145 @@
+package com.excelr.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.excelr.model.ProductSearchSort;
+import com.excelr.model.Productdto;
+
+class ProductSearchIndexTests {
+
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new ProductSearchIndex();
+	}
+
+	@Test
+	void ranksByBm25WithFieldBoosts() {
+		index.index(product(1L, "Wireless mouse", "Compact and quiet", 20), "Electronics");
+		index.index(product(2L, "Keyboard", "Ships with a wireless mouse receiver and a long cable", 40), "Electronics");
+		index.index(product(3L, "Wireless mouse with a very long name for an ergonomic design", "", 30), "Electronics");
+		index.index(product(4L, "Desk lamp", "Warm light", 25), "Home");
+
+		ProductSearchIndex.Hits hits = index.search("wireless mouse", ProductSearchSort.RELEVANCE, 0, 10);
+		assertThat(hits.ids()).containsExactly(1L, 3L, 2L);
+		assertThat(hits.total()).isEqualTo(3);
+		assertThat(hits.truncated()).isFalse();
+
+		assertThat(index.search("wireless mouse", ProductSearchSort.PRICE_ASC, 0, 10).ids())
+						.containsExactly(1L, 3L, 2L);
+		assertThat(index.search("wireless mouse", ProductSearchSort.PRICE_DESC, 1, 10).ids())
+						.containsExactly(3L, 1L);
+	}
+
+	@Test
+	void matchesTheLastTokenAsAPrefixAndPrefersExactTerms() {
+		index.index(product(1L, "Wireless charger", "", 20), "Electronics");
+		index.index(product(2L, "Copper wire", "", 5), "Hardware");
+		index.index(product(3L, "Wired headphones", "", 15), "Electronics");
+
+		assertThat(index.search("wire", ProductSearchSort.RELEVANCE, 0, 10).ids())
+						.first().isEqualTo(2L);
+		assertThat(index.search("wire", ProductSearchSort.RELEVANCE, 0, 10).total()).isEqualTo(3);
+		assertThat(index.search("wirel", ProductSearchSort.RELEVANCE, 0, 10).ids())
+						.containsExactly(1L);
+		// Only the last token is a prefix
+		assertThat(index.search("wire charger", ProductSearchSort.RELEVANCE, 0, 10).total()).isZero();
+	}
+
+	@Test
+	void keepsTheMostFrequentExpansionsOfAPrefix() {
+		for (long id = 1; id <= 100; id++) {
+			index.index(product(id, String.format("Gadget aa%03d", id), "", 10), "Misc");
+		}
+		for (long id = 101; id <= 120; id++) {
+			index.index(product(id, "Aardvark " + id, "", 10), "Fruit");
+		}
+
+		// 101 terms start with "aa"; the rare aa001..aa100 sort before "aardvark" but must not crowd it out
+		ProductSearchIndex.Hits hits = index.search("aa", ProductSearchSort.RELEVANCE, 0, 200);
+		assertThat(hits.truncated()).isTrue();
+		assertThat(hits.ids()).contains(101L, 120L);
+		assertThat(hits.total()).isEqualTo(83);
+
+		assertThat(index.search("aar", ProductSearchSort.RELEVANCE, 0, 200).truncated()).isFalse();
+		assertThat(index.search("aar", ProductSearchSort.RELEVANCE, 0, 200).total()).isEqualTo(20);
+
+		// A single character only matches exactly
+		ProductSearchIndex.Hits single = index.search("a", ProductSearchSort.RELEVANCE, 0, 200);
+		assertThat(single.total()).isZero();
+		assertThat(single.truncated()).isTrue();
+	}
+
+	@Test
+	void sortsAndPagesAcrossShards() {
+		for (long id = 1; id <= 500; id++) {
+			Productdto product = product(id, "Desk lamp " + id, "", 1000 - id);
+			product.setRating(id % 5 == 0 ? null : (float) (id % 5));
+			index.index(product, "Home");
+		}
+
+		ProductSearchIndex.Hits cheapest = index.search("lamp", ProductSearchSort.PRICE_ASC, 10, 5);
+		assertThat(cheapest.total()).isEqualTo(500);
+		assertThat(cheapest.ids()).containsExactly(490L, 489L, 488L, 487L, 486L);
+
+		List<Long> rated = index.search("lamp", ProductSearchSort.RATING, 0, 500).ids();
+		assertThat(rated.subList(0, 100)).allMatch(id -> id % 5 == 4);
+		assertThat(rated.subList(400, 500)).allMatch(id -> id % 5 == 0);
+	}
+
+	@Test
+	void reindexingAndRemovingKeepPostingsCurrent() {
+		index.index(product(1L, "Trail shoes", "", 80), "Sports");
+		index.index(product(2L, "Trail backpack", "", 60), "Sports");
+		assertThat(index.size()).isEqualTo(2);
+
+		index.index(product(1L, "Road shoes", "", 80), "Sports");
+		assertThat(index.size()).isEqualTo(2);
+		assertThat(index.search("trail", ProductSearchSort.RELEVANCE, 0, 10).ids())
+						.containsExactly(2L);
+		assertThat(index.search("road", ProductSearchSort.RELEVANCE, 0, 10).ids())
+						.containsExactly(1L);
+
+		index.remove(2L);
+		index.remove(99L);
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.search("trail", ProductSearchSort.RELEVANCE, 0, 10).total()).isZero();
+		assertThat(index.search("sports", ProductSearchSort.RELEVANCE, 0, 10).ids())
+						.containsExactly(1L);
+
+		index.clear();
+		assertThat(index.size()).isZero();
+		assertThat(index.search("road", ProductSearchSort.RELEVANCE, 0, 10).total()).isZero();
+
+		// Freed slots are reused without leaking postings from the removed products
+		for (long id = 1; id <= 2000; id++) {
+			index.index(product(id, id % 2 == 0 ? "Even" : "Odd", "", id), "Numbers");
+		}
+		for (long id = 2; id <= 2000; id += 2) {
+			index.remove(id);
+		}
+		for (long id = 2002; id <= 2400; id += 2) {
+			index.index(product(id, "Odd", "", id), "Numbers");
+		}
+		assertThat(index.size()).isEqualTo(1200);
+		assertThat(index.search("even", ProductSearchSort.RELEVANCE, 0, 10).total()).isZero();
+		assertThat(index.search("odd", ProductSearchSort.PRICE_DESC, 0, 2).ids()).containsExactly(2400L, 2398L);
+		assertThat(index.search("odd", ProductSearchSort.RELEVANCE, 0, 10).total()).isEqualTo(1200);
+	}
+
+	private static Productdto product(Long id, String name, String description, double price) {
+		Productdto product = new Productdto();
+		product.setId(id);
+		product.setName(name);
+		product.setDescription(description);
+		product.setPrice(price);
+		product.setSubcategoryName("General");
+		return product;
+	}
+}
@@ -0,0 +1,106 @@
+package com.excelr.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class S3UtilTests {
+
+	@TempDir
+	Path dir;
+
+	private SimpleMeterRegistry meterRegistry;
+	private InMemoryObjectStore objectStore;
+	private S3Util s3Util;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		objectStore = new InMemoryObjectStore("http://localhost/media");
+		s3Util = new S3Util();
+		ReflectionTestUtils.setField(s3Util, "objectStore", objectStore);
+		ReflectionTestUtils.setField(s3Util, "meterRegistry", meterRegistry);
+	}
+
+	@Test
+	void streamsValidUploadsWithoutBufferingTheBody() throws Exception {
+		byte[] png = image("png", 40, 30);
+		MockMultipartFile file = spy(new MockMultipartFile("image", "shoe photo.png", "image/png", png));
+
+		String url = s3Util.uploadImage(file);
+
+		assertThat(url).startsWith("http://localhost/media/").endsWith("_shoephoto.png");
+		assertThat(objectStore.get(objectStore.keyOf(url))).isEqualTo(png);
+		verify(file, never()).getBytes();
+	}
+
+	@Test
+	void validatesFormatAndDimensionsFromTheHeaderAlone() throws Exception {
+		// Cut off after the PNG signature and IHDR chunk: no pixel data to decode
+		byte[] headerOnly = Arrays.copyOf(image("png", 40, 30), 33);
+		s3Util.validateFile(new MockMultipartFile("image", "a.png", "image/png", headerOnly));
+
+		// The sniffed format decides, not the extension
+		s3Util.validateFile(new MockMultipartFile("image", "a.png", "image/png", image("jpeg", 40, 30)));
+		assertThatThrownBy(() -> s3Util.validateFile(new MockMultipartFile("image", "a.png", "image/png",
+				image("gif", 40, 30))))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageStartingWith("Unsupported file type");
+		assertThatThrownBy(() -> s3Util.validateFile(new MockMultipartFile("image", "a.png", "image/png",
+				"not an image".getBytes(StandardCharsets.UTF_8))))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid image file");
+		assertThatThrownBy(() -> s3Util.validateFile(new MockMultipartFile("image", "wide.png", "image/png",
+				image("png", 8001, 1))))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Image dimensions must be between 1 and 8000 pixels");
+		assertThatThrownBy(() -> s3Util.validateFile(new MockMultipartFile("image", "a.gif", "image/gif",
+				image("png", 40, 30))))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageStartingWith("Unsupported file type");
+	}
+
+	@Test
+	void timesStorageCallsAndCountsFailures() throws Exception {
+		Path file = Files.write(dir.resolve("a.png"), new byte[] {1, 2, 3});
+
+		s3Util.putObject("a.png", file, "image/png");
+		s3Util.putObject("b.png", file, "image/png");
+		assertThatThrownBy(() -> s3Util.putObject("c.png", dir.resolve("missing.png"), "image/png"))
+				.isInstanceOf(RuntimeException.class);
+
+		assertThat(objectStore.size()).isEqualTo(2);
+		assertThat(meterRegistry.timer("storage.requests", "operation", "put", "outcome", "success").count())
+				.isEqualTo(2);
+		assertThat(meterRegistry.timer("storage.requests", "operation", "put", "outcome", "error").count())
+				.isEqualTo(1);
+		assertThat(meterRegistry.counter("storage.errors", "operation", "put",
+				"exception", "UncheckedIOException").count()).isEqualTo(1);
+	}
+
+	private static byte[] image(String format, int width, int height) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, out);
+		return out.toByteArray();
+	}
+}
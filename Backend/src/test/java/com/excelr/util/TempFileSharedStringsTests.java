@@ -0,0 +1,42 @@
+package com.excelr.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class TempFileSharedStringsTests {
+
+	@Test
+	void readsPlainRichAndPhoneticStringsBackFromDisk() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"7\" uniqueCount=\"4\">"
+				+ "<si><t>Pixel 9</t></si>"
+				+ "<si><r><rPr><b/></rPr><t>Galaxy </t></r><r><t xml:space=\"preserve\">S24 </t></r></si>"
+				+ "<si><t>東京</t><rPh sb=\"0\" eb=\"2\"><t>トウキョウ</t></rPh></si>"
+				+ "<si><t/></si>"
+				+ "</sst>";
+
+		try (TempFileSharedStrings strings = new TempFileSharedStrings(
+				new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))) {
+			assertThat(strings.getUniqueCount()).isEqualTo(4);
+			assertThat(strings.getCount()).isEqualTo(7);
+			assertThat(strings.getItemAt(2).getString()).isEqualTo("東京");
+			assertThat(strings.getItemAt(1).getString()).isEqualTo("Galaxy S24 ");
+			assertThat(strings.getItemAt(0).getString()).isEqualTo("Pixel 9");
+			assertThat(strings.getItemAt(3).getString()).isEmpty();
+			assertThatThrownBy(() -> strings.getItemAt(4)).isInstanceOf(IndexOutOfBoundsException.class);
+		}
+	}
+
+	@Test
+	void treatsAMissingPartAsAnEmptyTable() throws Exception {
+		try (TempFileSharedStrings strings = new TempFileSharedStrings(null)) {
+			assertThat(strings.getUniqueCount()).isZero();
+			assertThat(strings.getCount()).isZero();
+		}
+	}
+}
@@ -29,6 +29,14 @@ export default [
       ...react.configs['jsx-runtime'].rules,
       ...reactHooks.configs.recommended.rules,
       'react/jsx-no-target-blank': 'off',
+      // /api/get/categories returns productCount per node, not product lists; load products from /api/products
+      'no-restricted-syntax': [
+        'error',
+        {
+          selector: "MemberExpression[property.name='product']",
+          message: 'Category tree nodes no longer embed products; fetch them from /api/products.',
+        },
+      ],
       'react-refresh/only-export-components': [
         'warn',
         { allowConstantExport: true },
@@ -34,9 +34,9 @@ const AdminDashboard = ({ homeContent }) => {
     }
     try {
       const res = await axios.get(
-        `http://localhost:8081/api/products/search?keyword=${query}`
+        `http://localhost:8081/api/products/search?keyword=${encodeURIComponent(query)}&limit=20`
       );
-      setSearchResults(res.data);
+      setSearchResults(res.data.content);
     } catch (error) {
       console.error("Error fetching search results:", error);
     }
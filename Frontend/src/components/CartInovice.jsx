@@ -11,12 +11,19 @@ const CartInvoice = () => {
       navigate('/login')
       return;
     }
+    // One key per checkout attempt, kept across retries so a repeated click reuses the same order
+    let checkoutKey = sessionStorage.getItem("checkoutKey");
+    if (checkoutKey == null) {
+      checkoutKey = crypto.randomUUID();
+      sessionStorage.setItem("checkoutKey", checkoutKey);
+    }
+    const headers = { Authorization: `Bearer ${localStorage.getItem('token')}` };
     try {
+      await syncCart();
+      // The server prices the order from its copy of the cart
       const orderResponse = await axios.post("http://localhost:8081/create-order", {
-        amount: totalCost, // Amount in INR
         currency: "INR",
-        receipt: "receipt#1",
-      });
+      }, { headers: { ...headers, "Idempotency-Key": checkoutKey } });
 
       const { id: order_id, amount, currency } = orderResponse.data;
 
@@ -34,12 +41,14 @@ const CartInvoice = () => {
               razorpay_order_id: response.razorpay_order_id,
               razorpay_payment_id: response.razorpay_payment_id,
               razorpay_signature: response.razorpay_signature,
-            }
+            },
+            { headers }
           );
 
           if (verifyResponse.status === 200) {
             localStorage.removeItem("cart");
             localStorage.removeItem("totalCost")
+            sessionStorage.removeItem("checkoutKey");
             alert("Payment Successful!");
             navigate("/");
           } else {
@@ -59,12 +68,17 @@ const CartInvoice = () => {
       const razor = new window.Razorpay(options);
       razor.open();
     } catch (error) {
+      if (error.response?.status === 409) {
+        // The cart changed, so the next attempt needs a fresh order
+        sessionStorage.removeItem("checkoutKey");
+        alert("Some items in your cart are out of stock.");
+      }
       console.error("Payment Failed:", error);
     }
   };
     
 
-  const { cart, totalCost,removeFromCart} = useCart();
+  const { cart, totalCost,removeFromCart, syncCart} = useCart();
   const navigate = useNavigate();
   
   useEffect(()=>{
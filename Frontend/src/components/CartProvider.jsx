@@ -1,4 +1,5 @@
-import { createContext, useContext, useState, useEffect } from "react";
+import { createContext, useContext, useState, useEffect, useCallback } from "react";
+import axios from "axios";
 
 // Create Context
 const CartContext = createContext();
@@ -23,12 +24,29 @@ export const CartProvider = ({ children }) => {
   // Persist cart and total cost to local storage whenever they change
   useEffect(() => {
     localStorage.setItem('cart', JSON.stringify(cart));
+    // A changed cart must not reuse an order created for the old one
+    sessionStorage.removeItem('checkoutKey');
   }, [cart]);
 
   useEffect(() => {
     localStorage.setItem('totalCost', JSON.stringify(totalCost));
   }, [totalCost]);
 
+  // Signed-in users keep a server-side copy of the cart; it prices the order at checkout
+  const syncCart = useCallback(async () => {
+    const token = localStorage.getItem('token');
+    if (token == null) return;
+    await axios.put(
+      "http://localhost:8081/user/cart",
+      cart.map((item) => ({ productId: item.id, quantity: item.qty })),
+      { headers: { Authorization: `Bearer ${token}` } }
+    );
+  }, [cart]);
+
+  useEffect(() => {
+    syncCart().catch((error) => console.error("Cart sync failed:", error));
+  }, [syncCart]);
+
   const addToCart = (item) => {
     setCart((prevCart) => {
       const existingItem = prevCart.find((cartItem) => cartItem.id === item.id);
@@ -63,7 +81,7 @@ export const CartProvider = ({ children }) => {
   };
 
   return (
-    <CartContext.Provider value={{ cart, totalCost,cartCount, addToCart, removeFromCart }}>
+    <CartContext.Provider value={{ cart, totalCost,cartCount, addToCart, removeFromCart, syncCart }}>
       {children}
     </CartContext.Provider>
   );
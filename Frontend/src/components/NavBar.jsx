@@ -22,9 +22,9 @@ function NavBar() {
     }
 
     try {
-      const res = await axios.get(`http://localhost:8081/api/products/search?keyword=${query}`);
+      const res = await axios.get(`http://localhost:8081/api/products/search?keyword=${encodeURIComponent(query)}&limit=10`);
       console.log(res);
-      setSearchResults(res.data);
+      setSearchResults(res.data.content);
     } catch (error) {
       console.error('Error fetching search results:', error);
     }
@@ -107,7 +107,7 @@ const CategoryComponent = () => {
     <div className="image-grid">
       {categories.map((item) => (
         <div key={item.id} className="image-item">
-          <img src={item.image} alt={item.name} className="image" />
+          <img src={item.imageVariants?.["128"] || item.image} alt={item.name} className="image" />
           <p
             className="image-name"
             onClick={() => setOpenDropdown(openDropdown === item.id ? null : item.id)}
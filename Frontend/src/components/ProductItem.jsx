@@ -35,7 +35,7 @@ const ProductItem = () => {
     <div className="product-container">
       <div className="product-card">
         <div className="product-image">
-          <img src={selectedItem.image} alt={selectedItem.name} />
+          <img src={selectedItem.imageVariants?.["800"] || selectedItem.image} alt={selectedItem.name} />
         </div>
 
         <div className="product-details">
@@ -81,7 +81,7 @@ const ProductUpload = () => {
       const url = window.URL.createObjectURL(new Blob([response.data]));
       const link = document.createElement("a");
       link.href = url;
-      link.setAttribute("download", "products_export.csv");
+      link.setAttribute("download", "products_export.xlsx");
       document.body.appendChild(link);
       link.click();
       document.body.removeChild(link);
@@ -63,7 +63,7 @@ const ProductsPage = () => {
               onClick={() => display_singleitem(groceryItem)}
             >
               <img
-                src={groceryItem.image}
+                src={groceryItem.imageVariants?.["320"] || groceryItem.image}
                 alt={groceryItem.name}
                 className="grocery-image"
                 loading="lazy"
@@ -10,27 +10,9 @@ function Top() {
       addToCart({ ...product, qty })
     }
     const func = async () => {
-      const res = await axios.get("http://localhost:8081/api/get/categories");
-      console.log(res);
-      let newProducts = [];
-let counter = 0;
-
-for (const element of res.data.category) {
-  for (const element1 of element.subCategory) {
-    newProducts = [...newProducts, ...element1.product];
-    counter += element1.product.length;
-    if (counter >= 6) {
-      newProducts = newProducts.slice(0, 6);
-      break;
-    }
-  }
-  if (counter >= 6) {
-    break;
-  }
-}
-
-// Update the state after the loop to prevent multiple state updates
-setProducts(newProducts);
+      // The category tree only carries product counts; the first page of products feeds this row
+      const res = await axios.get("http://localhost:8081/api/products", { params: { size: 6 } });
+      setProducts(res.data.content);
     };
   
   useEffect(() => {
@@ -47,7 +29,7 @@ setProducts(newProducts);
             {products.map((product) => (
               <div key={product.id} className="card" style={{ width: "16%" }}>
                 <img
-                  src={product.image}
+                  src={product.imageVariants?.["320"] || product.image}
                   alt={product.name}
                   style={{
                     width: "100%",
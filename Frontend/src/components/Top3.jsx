@@ -10,21 +10,8 @@ function Top3() {
     addToCart({ ...product, qty })
   }
   const func = async () => {
-    const res = await axios.get("http://localhost:8081/api/get/categories");
-    let newProducts = [];
-    let counter=0;             
-      for (const element of res.data.category) {
-        for (const element1 of element.subCategory) {
-          newProducts = [...newProducts, ...element1.product];
-          counter += element1.product.length;
-          if(counter>=9){
-            newProducts = newProducts.slice(0, 9);
-            break;
-          }
-          if(counter>=9) break;
-        }
-      }
-      setProducts(newProducts);
+    const res = await axios.get("http://localhost:8081/api/products", { params: { size: 9 } });
+    setProducts(res.data.content);
   };
 
   useEffect(() => {
@@ -44,7 +31,7 @@ function Top3() {
                 }} 
               >
                 <img
-                  src={product.image}
+                  src={product.imageVariants?.["320"] || product.image}
                   alt={product.name}
                   style={{
                     width: "100%",